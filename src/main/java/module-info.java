@@ -13,6 +13,7 @@ module gpio.main {
     exports org.digitalsmile.gpio.spi.attributes;
     exports org.digitalsmile.gpio.i2c;
     exports org.digitalsmile.gpio.i2c.attributes;
+    exports org.digitalsmile.gpio.i2c.device;
     exports org.digitalsmile.gpio.pwm;
     exports org.digitalsmile.gpio.pwm.attributes;
     exports org.digitalsmile.gpio.scanner.model;
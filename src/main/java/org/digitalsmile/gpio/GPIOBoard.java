@@ -3,6 +3,7 @@ package org.digitalsmile.gpio;
 import io.github.digitalsmile.annotation.function.NativeMemoryException;
 import org.digitalsmile.gpio.i2c.I2CBus;
 import org.digitalsmile.gpio.pin.Pin;
+import org.digitalsmile.gpio.pin.PinSampler;
 import org.digitalsmile.gpio.pin.attributes.PinDirection;
 import org.digitalsmile.gpio.pwm.PWMBus;
 import org.digitalsmile.gpio.scanner.Scanner;
@@ -13,6 +14,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 
 /**
  * Class for creating abstractions over GPIO. It uses native FFM calls (such as open and ioctl) to operate with hardware.
@@ -92,6 +94,37 @@ public final class GPIOBoard {
         return ofPin(DEFAULT_GPIO_DEVICE, pinNumber, pinDirection);
     }
 
+    /**
+     * Creates sampler of GPIO Pins group using GPIO device name, pins, sampling period and capacity of samples ring.
+     *
+     * @param gpioDeviceName GPIO device name
+     * @param pinNumbers     pins to be sampled, up to 64
+     * @param period         sampling period
+     * @param capacity       number of samples to be kept
+     * @return GPIO Pin sampler instance
+     * @throws NativeMemoryException if errors occurred during creating instance
+     */
+    public static PinSampler ofPinSampler(String gpioDeviceName, int[] pinNumbers, Duration period, int capacity) throws NativeMemoryException {
+        var gpioChipPath = Path.of(gpioDeviceName).toFile();
+        if (!gpioChipPath.exists()) {
+            throw new NativeMemoryException("GPIO Chip with path '" + gpioDeviceName + "' does not exist!");
+        }
+        return new PinSampler(gpioDeviceName, pinNumbers, period, capacity);
+    }
+
+    /**
+     * Creates sampler of GPIO Pins group using pins, sampling period and capacity of samples ring. All other fields are defaults.
+     *
+     * @param pinNumbers pins to be sampled, up to 64
+     * @param period     sampling period
+     * @param capacity   number of samples to be kept
+     * @return GPIO Pin sampler instance
+     * @throws NativeMemoryException if errors occurred during creating instance
+     */
+    public static PinSampler ofPinSampler(int[] pinNumbers, Duration period, int capacity) throws NativeMemoryException {
+        return ofPinSampler(DEFAULT_GPIO_DEVICE, pinNumbers, period, capacity);
+    }
+
     /**
      * Creates SPI Bus from given GPIO device name, path to spi bus, bus number, spi mode, clock frequency, length of byte and bit order.
      *
@@ -0,0 +1,46 @@
+package org.digitalsmile.gpio.core;
+
+/**
+ * Error numbers of linux native calls, which are returned as negative status by exception-free calls.
+ */
+public final class Errno {
+
+    /**
+     * Forbids creating an instance of this class.
+     */
+    private Errno() {
+    }
+
+    /**
+     * Input / output error
+     */
+    public static final int EIO = 5;
+    /**
+     * No such device or address, usually there is no device on I2C address
+     */
+    public static final int ENXIO = 6;
+    /**
+     * Resource temporarily unavailable
+     */
+    public static final int EAGAIN = 11;
+    /**
+     * Device or resource busy
+     */
+    public static final int EBUSY = 16;
+    /**
+     * Invalid argument
+     */
+    public static final int EINVAL = 22;
+    /**
+     * Operation not supported
+     */
+    public static final int EOPNOTSUPP = 95;
+    /**
+     * Connection timed out
+     */
+    public static final int ETIMEDOUT = 110;
+    /**
+     * Remote I/O error, usually device did not acknowledge its address on I2C bus
+     */
+    public static final int EREMOTEIO = 121;
+}
@@ -0,0 +1,136 @@
+package org.digitalsmile.gpio.core.executor;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor of native calls for one bus. All calls are executed one by one on the single dedicated platform thread,
+ * so blocking native calls never pin carriers of virtual threads and different buses work in parallel.
+ * <p>
+ * Submission queue is bounded, if it is full the returned future is completed with {@link RejectedExecutionException}.
+ */
+public final class BusExecutor implements AutoCloseable {
+    /**
+     * Default capacity of submission queue.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates executor with given thread name and capacity of submission queue.
+     *
+     * @param name          name of the worker thread
+     * @param queueCapacity capacity of submission queue
+     */
+    public BusExecutor(String name, int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name(name).daemon(true).factory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Submits the native call for execution.
+     *
+     * @param call native call to be executed
+     * @param <T>  type of the result
+     * @return future of the call result
+     */
+    public <T> CompletableFuture<T> submit(NativeCall<T> call) {
+        var task = new Task<>(call);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    /**
+     * Gets the number of calls waiting for execution.
+     *
+     * @return number of pending calls
+     */
+    public int getPendingCalls() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting new calls and waits for the pending calls to be executed.
+     * Calls not started in time are cancelled, so their futures complete with {@link java.util.concurrent.CancellationException}.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                cancelPending();
+            }
+        } catch (InterruptedException e) {
+            cancelPending();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the worker and cancels calls, which are still in the queue.
+     */
+    private void cancelPending() {
+        for (Runnable runnable : executor.shutdownNow()) {
+            if (runnable instanceof Task<?> task) {
+                task.future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Queued native call with its future.
+     *
+     * @param <T> type of the result
+     */
+    private static final class Task<T> implements Runnable {
+        private final NativeCall<T> call;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        /**
+         * Creates task of native call.
+         *
+         * @param call native call to be executed
+         */
+        private Task(NativeCall<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(call.call());
+            } catch (NativeMemoryException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Native call, which can throw {@link NativeMemoryException}.
+     *
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    public interface NativeCall<T> {
+        /**
+         * Executes the call.
+         *
+         * @return result of the call
+         * @throws NativeMemoryException if error occurred during native call
+         */
+        T call() throws NativeMemoryException;
+    }
+}
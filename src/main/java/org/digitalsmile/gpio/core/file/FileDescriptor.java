@@ -19,4 +19,13 @@ public interface FileDescriptor {
 
     @Function(name = "write", useErrno = true, returnType = int.class)
     int write(int fd, @ByAddress byte[] data) throws NativeMemoryException;
+
+    @Function(name = "read", useErrno = true, returnType = int.class)
+    int read(int fd, long bufferAddress, long size) throws NativeMemoryException;
+
+    @Function(name = "read", returnType = int.class)
+    int readNonBlocking(int fd, long bufferAddress, long size) throws NativeMemoryException;
+
+    @Function(name = "fcntl", useErrno = true, returnType = int.class)
+    int fcntl(int fd, int command, int argument) throws NativeMemoryException;
 }
@@ -25,4 +25,8 @@ public final class FileFlag {
     public static final int O_TMPFILE = 4259840;
     public static final int O_TRUNC = 512;
     public static final int O_WRONLY = 1;
+
+    // commands for fcntl to get / set the flags above on opened file descriptor
+    public static final int F_GETFL = 3;
+    public static final int F_SETFL = 4;
 }
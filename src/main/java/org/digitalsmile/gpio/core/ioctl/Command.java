@@ -65,6 +65,10 @@ public final class Command {
         return Internals.GPIO_V2_GET_LINE_IOCTL;
     }
 
+    public static long getGpioV2SetConfigIoctl() {
+        return Internals.GPIO_V2_LINE_SET_CONFIG_IOCTL;
+    }
+
     public static long getGpioV2GetValuesIoctl() {
         return Internals.GPIO_V2_LINE_GET_VALUES_IOCTL;
     }
@@ -88,4 +92,12 @@ public final class Command {
     public static long getI2CFuncs() {
         return 0x0705L;
     }
+
+    public static long getI2CRdwr() {
+        return 0x0707L;
+    }
+
+    public static long getSpiIocMessage(int count) {
+        return Internals.SPI_IOC_MESSAGE(count);
+    }
 }
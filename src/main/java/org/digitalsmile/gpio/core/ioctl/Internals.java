@@ -89,7 +89,8 @@ final class Internals {
 
     static int SPI_IOC_TRANSFER_SIZE() {
         if (_SPI_IOC_TRANSFER_SIZE == -1) {
-            _SPI_IOC_TRANSFER_SIZE = 44;
+            // sizeof(struct spi_ioc_transfer)
+            _SPI_IOC_TRANSFER_SIZE = 32;
         }
         return _SPI_IOC_TRANSFER_SIZE;
     }
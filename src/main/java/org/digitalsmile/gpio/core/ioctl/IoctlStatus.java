@@ -0,0 +1,64 @@
+package org.digitalsmile.gpio.core.ioctl;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Exception-free ioctl call, which returns the status instead of throwing the exception.
+ * It is intended for probe-heavy and retry loops, where failed call is the normal control flow,
+ * so no exception objects, stack traces and error strings are created.
+ * <p>
+ * Errno is captured by the linker into thread local state segment, which is allocated once per thread.
+ */
+public final class IoctlStatus {
+    private static final Linker LINKER = Linker.nativeLinker();
+    private static final StructLayout CAPTURED_STATE_LAYOUT = Linker.Option.captureStateLayout();
+    private static final VarHandle VH_ERRNO = CAPTURED_STATE_LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("errno"));
+    private static final MethodHandle IOCTL = LINKER.downcallHandle(
+            LINKER.defaultLookup().find("ioctl").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG),
+            Linker.Option.captureCallState("errno"), Linker.Option.firstVariadicArg(2));
+    private static final ThreadLocal<MemorySegment> CAPTURED_STATE = ThreadLocal.withInitial(() -> Arena.ofAuto().allocate(CAPTURED_STATE_LAYOUT));
+
+    /**
+     * Forbids creating an instance of this class.
+     */
+    private IoctlStatus() {
+    }
+
+    /**
+     * Calls ioctl with data passed by value (e.g. address of native structure).
+     *
+     * @param fd      file descriptor
+     * @param command ioctl command
+     * @param data    data or address of the data
+     * @return result of ioctl if it is successful, otherwise negative errno (see {@link org.digitalsmile.gpio.core.Errno})
+     */
+    public static int call(int fd, long command, long data) {
+        var capturedState = CAPTURED_STATE.get();
+        int result;
+        try {
+            result = (int) IOCTL.invokeExact(capturedState, fd, command, data);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+        return result < 0 ? -(int) VH_ERRNO.get(capturedState, 0L) : result;
+    }
+
+    /**
+     * Checks if status returned by {@link #call(int, long, long)} is successful.
+     *
+     * @param status status of the call
+     * @return true if call is successful
+     */
+    public static boolean isSuccess(int status) {
+        return status >= 0;
+    }
+}
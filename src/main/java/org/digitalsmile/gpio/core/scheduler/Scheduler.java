@@ -0,0 +1,12 @@
+package org.digitalsmile.gpio.core.scheduler;
+
+import io.github.digitalsmile.annotation.NativeMemory;
+import io.github.digitalsmile.annotation.function.ByAddress;
+import io.github.digitalsmile.annotation.function.Function;
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+
+@NativeMemory
+public interface Scheduler {
+    @Function(name = "sched_setaffinity", useErrno = true, returnType = int.class)
+    int setAffinity(int pid, long cpuSetSize, @ByAddress long cpuSet) throws NativeMemoryException;
+}
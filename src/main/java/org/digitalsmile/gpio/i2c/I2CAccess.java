@@ -0,0 +1,115 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Internal strategy of register access, resolved once from supported functionalities when {@link I2CBus} is created.
+ */
+interface I2CAccess extends AutoCloseable {
+
+    /**
+     * Writes the data byte into the register address.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address of device
+     * @param data            data byte to be written
+     * @throws NativeMemoryException if there is issue while writing the data
+     */
+    void write(int fd, int address, int flags, int registerAddress, int data) throws NativeMemoryException;
+
+    /**
+     * Writes the data array into the register address.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address of device
+     * @param data            data array to be written
+     * @throws NativeMemoryException if there is issue while writing the data
+     */
+    void write(int fd, int address, int flags, int registerAddress, byte[] data) throws NativeMemoryException;
+
+    /**
+     * Reads the data from the register address.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address of device
+     * @return data read from register
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    int read(int fd, int address, int flags, int registerAddress) throws NativeMemoryException;
+
+    /**
+     * Reads the data array from the register address.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address of device
+     * @param size            the size of the data to read
+     * @return data array read from register
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    byte[] read(int fd, int address, int flags, int registerAddress, int size) throws NativeMemoryException;
+
+    /**
+     * Writes the data from native segment into the register address.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address of device
+     * @param source          native segment with data to be written
+     * @throws NativeMemoryException if there is issue while writing the data
+     */
+    void write(int fd, int address, int flags, int registerAddress, MemorySegment source) throws NativeMemoryException;
+
+    /**
+     * Reads the data from the register address into native segment, the size of segment is the size of data to read.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address of device
+     * @param destination     native segment to be filled with data
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    void read(int fd, int address, int flags, int registerAddress, MemorySegment destination) throws NativeMemoryException;
+
+    /**
+     * Writes the data from native segment into the register address without throwing exception.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address of device
+     * @param source          native segment with data to be written
+     * @return zero or positive value if successful, otherwise negative errno
+     */
+    int tryWrite(int fd, int address, int flags, int registerAddress, MemorySegment source);
+
+    /**
+     * Reads the data from the register address into native segment without throwing exception.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address of device
+     * @param destination     native segment to be filled with data
+     * @return zero or positive value if successful, otherwise negative errno
+     */
+    int tryRead(int fd, int address, int flags, int registerAddress, MemorySegment destination);
+
+    /**
+     * Releases resources of the strategy.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,113 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.IntegerToHex;
+import org.digitalsmile.gpio.pin.Pin;
+import org.digitalsmile.gpio.pin.attributes.PinEvent;
+import org.digitalsmile.gpio.pin.event.EventSinkSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Interrupt-driven acquisition of I2C device. The edge of INT / ALERT / data-ready pin of device triggers predefined batch of reads,
+ * which is executed immediately on the event detection thread of the pin. Data is delivered with kernel timestamp of the edge,
+ * so the bus is used only when the new data exists and every sample has precise capture time.
+ * <p>
+ * If several edges are detected in one batch of events, reads are executed once with timestamp and sequence number of the latest edge,
+ * since device holds only the latest data.
+ * <p>
+ * Instance of acquisition can only be created from {@link I2CBus#acquireOn(Pin, PinEvent, int, I2CBatch, I2CAcquisitionListener)}.
+ */
+public final class I2CAcquisition implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(I2CAcquisition.class);
+
+    private final I2CBus bus;
+    private final String path;
+    private final Pin pin;
+    private final int address;
+    private final I2CBatch batch;
+    private final I2CAcquisitionListener listener;
+    private final EventSinkSubscription subscription;
+
+    private volatile long samples;
+    private volatile long errors;
+
+    /**
+     * Creates acquisition and subscribes to the events of the pin.
+     *
+     * @param bus      I2C bus of device
+     * @param path     path of I2C bus device
+     * @param pin      input pin connected to the interrupt line of device
+     * @param pinEvent the edge of pin to trigger reads
+     * @param address  device address on the bus
+     * @param batch    batch of reads to be executed, it is copied
+     * @param listener listener of read data
+     */
+    I2CAcquisition(I2CBus bus, String path, Pin pin, PinEvent pinEvent, int address, I2CBatch batch, I2CAcquisitionListener listener) {
+        this.bus = bus;
+        this.path = path;
+        this.pin = pin;
+        this.address = address;
+        this.batch = new I2CBatch().append(batch);
+        this.listener = listener;
+        this.subscription = pin.subscribe(pinEvent, this::acquire);
+    }
+
+    /**
+     * Executes reads on the event detection thread.
+     *
+     * @param timestamps      timestamps of edges
+     * @param events          event types
+     * @param sequenceNumbers sequence numbers of edges
+     * @param count           number of edges
+     */
+    private void acquire(long[] timestamps, int[] events, int[] sequenceNumbers, int count) {
+        var last = count - 1;
+        try {
+            var data = bus.execute(address, batch);
+            samples++;
+            listener.onSample(data, timestamps[last], sequenceNumbers[last]);
+        } catch (NativeMemoryException e) {
+            errors++;
+            logger.debug("{} - error while acquiring data from '{}'.", path, IntegerToHex.convert(address), e);
+            listener.onError(timestamps[last], e);
+        }
+    }
+
+    /**
+     * Gets the number of samples acquired.
+     *
+     * @return number of samples
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Gets the number of failed reads.
+     *
+     * @return number of errors
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Stops the acquisition, event detection of the pin is stopped if there are no other subscriptions.
+     */
+    @Override
+    public void close() {
+        pin.unsubscribe(subscription);
+    }
+
+    @Override
+    public String toString() {
+        return "I2CAcquisition{" +
+                "path='" + path + '\'' +
+                ", address=" + IntegerToHex.convert(address) +
+                ", batch=" + batch +
+                ", samples=" + samples +
+                ", errors=" + errors +
+                '}';
+    }
+}
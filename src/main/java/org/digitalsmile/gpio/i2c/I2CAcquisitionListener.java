@@ -0,0 +1,30 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+
+import java.util.List;
+
+/**
+ * Listener of interrupt-driven I2C acquisition, see {@link I2CAcquisition}.
+ * Methods are called on the event detection thread of the pin, so processing should be as fast as possible.
+ */
+@FunctionalInterface
+public interface I2CAcquisitionListener {
+    /**
+     * Called with the data read after the edge of the pin.
+     *
+     * @param data           list of data arrays read, in the order of reads in batch
+     * @param timestamp      kernel timestamp of the edge in nanoseconds
+     * @param sequenceNumber sequence number of the edge on the pin
+     */
+    void onSample(List<byte[]> data, long timestamp, int sequenceNumber);
+
+    /**
+     * Called if the read after the edge failed.
+     *
+     * @param timestamp kernel timestamp of the edge in nanoseconds
+     * @param exception exception occurred while reading
+     */
+    default void onError(long timestamp, NativeMemoryException exception) {
+    }
+}
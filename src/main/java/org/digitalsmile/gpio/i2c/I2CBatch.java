@@ -0,0 +1,163 @@
+package org.digitalsmile.gpio.i2c;
+
+import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Batch of register writes and reads of one I2C device, e.g. initialization sequence of display controller.
+ * Batch is executed by {@link I2CBus#execute(I2CBatch)} with as few I2C_RDWR ioctl calls as possible.
+ * <p>
+ * Operations are executed in the order they were added. Batch is not thread safe and can be reused many times.
+ */
+public final class I2CBatch {
+    // register address and data must fit into single I2C_RDWR message
+    static final int MAX_BLOCK_SIZE = I2CFlag.I2C_RDWR_MAX_MESSAGE_SIZE - 1;
+
+    private final List<Operation> operations = new ArrayList<>();
+    private int messageCount;
+    private int readCount;
+
+    /**
+     * Adds write of the data byte into the register address.
+     *
+     * @param registerAddress register address of device
+     * @param data            data byte to be written
+     * @return this batch
+     */
+    public I2CBatch write(int registerAddress, int data) {
+        return write(registerAddress, new byte[]{(byte) data});
+    }
+
+    /**
+     * Adds write of the data array into the register address.
+     *
+     * @param registerAddress register address of device
+     * @param data            data array to be written (up to 8191 bytes, split into 32 bytes blocks in SMBus mode)
+     * @return this batch
+     */
+    public I2CBatch write(int registerAddress, byte[] data) {
+        if (data.length > MAX_BLOCK_SIZE) {
+            throw new RuntimeException("The size of write block data must not be more than " + MAX_BLOCK_SIZE + " bytes.");
+        }
+        operations.add(new Operation(registerAddress, data.clone(), 0));
+        messageCount++;
+        return this;
+    }
+
+    /**
+     * Adds read of the data array from the register address. Data read is returned by {@link I2CBus#execute(I2CBatch)} in the order of reads.
+     *
+     * @param registerAddress register address of device
+     * @param size            the size of the data to read (up to 8191 bytes, split into 32 bytes blocks in SMBus mode)
+     * @return this batch
+     */
+    public I2CBatch read(int registerAddress, int size) {
+        if (size <= 0 || size > MAX_BLOCK_SIZE) {
+            throw new RuntimeException("The size of read block data must be from 1 to " + MAX_BLOCK_SIZE + " bytes.");
+        }
+        operations.add(new Operation(registerAddress, null, size));
+        messageCount += 2;
+        readCount++;
+        return this;
+    }
+
+    /**
+     * Removes all operations from the batch.
+     *
+     * @return this batch
+     */
+    public I2CBatch clear() {
+        operations.clear();
+        messageCount = 0;
+        readCount = 0;
+        return this;
+    }
+
+    /**
+     * Appends all operations of other batch to this batch.
+     *
+     * @param other batch to be appended
+     * @return this batch
+     */
+    I2CBatch append(I2CBatch other) {
+        operations.addAll(other.operations);
+        messageCount += other.messageCount;
+        readCount += other.readCount;
+        return this;
+    }
+
+    /**
+     * Gets the number of operations in the batch.
+     *
+     * @return number of operations
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Checks if batch has no operations.
+     *
+     * @return true if batch is empty
+     */
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Gets the operations in order of execution.
+     *
+     * @return unmodifiable list of operations
+     */
+    List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Gets the number of I2C messages needed to execute the batch, every read takes two messages.
+     *
+     * @return number of messages
+     */
+    int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Gets the number of reads in the batch.
+     *
+     * @return number of reads
+     */
+    int getReadCount() {
+        return readCount;
+    }
+
+    @Override
+    public String toString() {
+        return "I2CBatch{" +
+                "operations=" + operations.size() +
+                ", messages=" + messageCount +
+                ", reads=" + readCount +
+                '}';
+    }
+
+    /**
+     * Single operation of the batch.
+     *
+     * @param registerAddress register address of device
+     * @param data            data to be written, null for read operation
+     * @param readSize        the size of data to read, zero for write operation
+     */
+    record Operation(int registerAddress, byte[] data, int readSize) {
+        /**
+         * Checks if operation is read.
+         *
+         * @return true if operation reads data
+         */
+        boolean isRead() {
+            return data == null;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.digitalsmile.gpio.i2c;
 
 import io.github.digitalsmile.annotation.function.NativeMemoryException;
 import org.digitalsmile.gpio.GPIOBoard;
+import org.digitalsmile.gpio.core.Errno;
 import org.digitalsmile.gpio.core.IntegerToHex;
 import org.digitalsmile.gpio.core.file.FileDescriptor;
 import org.digitalsmile.gpio.core.file.FileDescriptorNative;
@@ -9,21 +10,29 @@ import org.digitalsmile.gpio.core.file.FileFlag;
 import org.digitalsmile.gpio.core.ioctl.Command;
 import org.digitalsmile.gpio.core.ioctl.Ioctl;
 import org.digitalsmile.gpio.core.ioctl.IoctlNative;
+import org.digitalsmile.gpio.core.ioctl.IoctlStatus;
 import org.digitalsmile.gpio.core.poll.Poll;
 import org.digitalsmile.gpio.core.poll.PollNative;
 import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
 import org.digitalsmile.gpio.i2c.attributes.I2CFunctionality;
 import org.digitalsmile.gpio.i2c.attributes.I2CStatus;
-import org.digitalsmile.gpio.i2c.structs.SMBusData;
-import org.digitalsmile.gpio.i2c.structs.SMBusIoctlData;
+import org.digitalsmile.gpio.pin.Pin;
+import org.digitalsmile.gpio.pin.attributes.PinEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class for creating I2C / SMBus object. It uses native FFM calls (such as open and ioctl) to operate with hardware.
@@ -31,10 +40,13 @@ import java.util.Map;
  * <p>
  * Since I2C and SMBus are usually mixed, we will guess the interface and use available.
  * Priority as follows:
- * 1) Raw I2C synchronous communication through files.
+ * 1) Raw I2C synchronous communication through files, register reads are combined into one I2C_RDWR transaction with repeated start.
  * 2) SMBus synchronous communication with WORD or BLOCK through ioctl.
  * <p>
  * Before reading / writing, please select the deviceAddress. All device addresses can be found by scan method.
+ * <p>
+ * Every call to the bus is executed under the bus lock. Operations with explicit device address (e.g. arbiter units,
+ * acquisitions and FIFO readers) restore the previously selected address, so the synchronous API keeps talking to the selected device.
  */
 public class I2CBus implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(I2CBus.class);
@@ -45,10 +57,25 @@ public class I2CBus implements AutoCloseable {
 
     private final String path;
     private final int i2cFileDescriptor;
-    private final Map<I2CFunctionality, Boolean> functionalityMap = new HashMap<>();
+    private final Map<I2CFunctionality, Boolean> functionalityMap = new EnumMap<>(I2CFunctionality.class);
+    // access strategy and raw I2C support never change after construction
+    private final I2CAccess access;
+    private final RawI2CAccess rawAccess;
+    private final boolean rawI2C;
+
+    // file descriptors bound to device addresses, used in per-address mode
+    private final Map<Integer, Integer> addressFileDescriptors = new HashMap<>();
+    private boolean perAddressFileDescriptors = false;
+    private int activeFileDescriptor;
 
     // selected device
     private int selectedAddress = -1;
+    private int messageFlags = 0;
+    // guards every native call, selection and scratch buffers of access, so sync API, arbiter and event threads can share the bus
+    private final Object busLock = new Object();
+
+    private I2CBusArbiter arbiter;
+    private final Map<Integer, I2CRegisterCache> registerCaches = new HashMap<>();
 
     /**
      * Creates I2CBus object and gets functionalities.
@@ -66,6 +93,7 @@ public class I2CBus implements AutoCloseable {
         logger.debug("{} - setting up I2CBus...", path);
         logger.debug("{} - opening device file.", path);
         this.i2cFileDescriptor = FILE.open(path, FileFlag.O_RDWR);
+        this.activeFileDescriptor = i2cFileDescriptor;
         logger.debug("{} - loading supported functionalities.", path);
         var i2cFunctions = IOCTL.call(i2cFileDescriptor, Command.getI2CFuncs(), 0);
         for (I2CFunctionality i2CFunctionality : I2CFunctionality.values()) {
@@ -73,12 +101,19 @@ public class I2CBus implements AutoCloseable {
             functionalityMap.put(i2CFunctionality, supported);
             logger.trace("{} - functionality {}({}) is {}.", path, i2CFunctionality.name(), IntegerToHex.convert(i2CFunctionality.getValue()), supported ? "supported" : "not supported");
         }
-        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_I2C)) {
+        this.rawI2C = functionalityMap.get(I2CFunctionality.I2C_FUNC_I2C);
+        if (rawI2C) {
             logger.debug("{} - I2CBus will be using direct file mode for read/write operations.", path);
+            this.rawAccess = new RawI2CAccess(functionalityMap.get(I2CFunctionality.I2C_FUNC_NOSTART));
+            this.access = rawAccess;
         } else if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_BYTE_DATA) ||
                 functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_WORD_DATA) ||
                 functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_I2C_BLOCK)) {
             logger.debug("{} - I2CBus will be using ioctl with SMBus mode for read/write operations.", path);
+            this.rawAccess = null;
+            this.access = new SMBusAccess(functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_WRITE_I2C_BLOCK),
+                    functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_READ_WORD_DATA),
+                    functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_READ_I2C_BLOCK));
         } else {
             logger.error("{} - Cannot configure I2CBus!", path);
             for (Map.Entry<I2CFunctionality, Boolean> functionality : functionalityMap.entrySet()) {
@@ -95,48 +130,227 @@ public class I2CBus implements AutoCloseable {
         return functionalityMap;
     }
 
+    /**
+     * Gets the transaction level arbiter of this bus, it is created on first call.
+     * Arbiter orders units of many threads by priority and merges them, direct calls are still safe, since every call takes the bus lock.
+     *
+     * @return arbiter of the bus
+     */
+    public synchronized I2CBusArbiter getArbiter() {
+        if (arbiter == null) {
+            logger.debug("{} - starting I2CBus arbiter.", path);
+            this.arbiter = new I2CBusArbiter(this, path);
+        }
+        return arbiter;
+    }
+
+    /**
+     * Gets the shadow cache of registers of the device with given address, it is created on first call.
+     * Cache is opt-in: registers are cached only when they are accessed through the cache.
+     *
+     * @param address device address on the bus
+     * @return register cache of device
+     */
+    public synchronized I2CRegisterCache getRegisterCache(int address) {
+        return registerCaches.computeIfAbsent(address, key -> new I2CRegisterCache(this, path, key));
+    }
+
+    /**
+     * Starts interrupt-driven acquisition: every edge of the pin triggers the batch of reads from the device,
+     * which is executed immediately on the event detection thread of the pin.
+     * Reads are executed under the bus lock, so the bus can be used from other threads at the same time.
+     *
+     * @param pin      input pin connected to INT / ALERT / data-ready line of device
+     * @param pinEvent the edge of pin to trigger reads
+     * @param address  device address on the bus
+     * @param batch    batch of reads to be executed on every edge
+     * @param listener listener of read data
+     * @return acquisition, that can be closed to stop it
+     */
+    public I2CAcquisition acquireOn(Pin pin, PinEvent pinEvent, int address, I2CBatch batch, I2CAcquisitionListener listener) {
+        logger.debug("{} - starting acquisition of '{}' on pin {}.", path, IntegerToHex.convert(address), pin);
+        return new I2CAcquisition(this, path, pin, pinEvent, address, batch, listener);
+    }
+
+    /**
+     * Creates reader of on-chip FIFO of the device with given address (e.g. IMU sensors).
+     * In SMBus mode every burst is one 32 bytes block read, so frame size must not be more than 32 bytes.
+     *
+     * @param address       device address on the bus
+     * @param countRegister address of 16-bit FIFO count register
+     * @param dataRegister  address of FIFO data register
+     * @param frameSize     size of single frame (sample) in bytes
+     * @param capacity      capacity of off-heap ring in frames
+     * @param countOrder    byte order of FIFO count register (usually big endian)
+     * @return FIFO reader
+     */
+    public I2CFifoReader getFifoReader(int address, int countRegister, int dataRegister, int frameSize, int capacity, ByteOrder countOrder) {
+        // SMBus reads longer than one block continue from the next register addresses instead of the FIFO data register,
+        // so every burst in SMBus mode is a single block read of the data register
+        var maxBurstSize = rawI2C ? I2CFlag.I2C_RDWR_MAX_MESSAGE_SIZE - 1 : I2CFlag.I2C_SMBUS_BLOCK_MAX;
+        return new I2CFifoReader(this, path, address, countRegister, dataRegister, frameSize, capacity, countOrder, maxBurstSize);
+    }
+
     /**
      * Scans the i2c bus for any devices.
      *
      * @return map of all addresses with corresponding statuses (AVAILABLE, BUSY, NOT_AVAILABLE, UNKNOWN)
      */
     public Map<Integer, I2CStatus> scan() {
-        logger.debug("{} - start scan of I2CBus for available devices...", path);
-        Map<Integer, I2CStatus> addressStatusMap = new HashMap<>();
-        for (int i = 0; i <= I2CFlag.MAX_7BIT_DEVICES; i++) {
-            try {
-                selectAddressInternal(i);
-            } catch (NativeMemoryException e) {
-                var error = e.getErrorCode();
-                addressStatusMap.put(i, error == I2CFlag.EBUSY ? I2CStatus.BUSY : I2CStatus.UNKNOWN);
-                if (error == I2CFlag.EBUSY) {
-                    logger.debug("{} - Found busy device at address {}!", path, IntegerToHex.convert(i));
+        synchronized (busLock) {
+            logger.debug("{} - start scan of I2CBus for available devices...", path);
+            var previousAddress = selectedAddress;
+            Map<Integer, I2CStatus> addressStatusMap = new HashMap<>();
+            try (var probe = new SMBusTransfer(); var arena = Arena.ofConfined()) {
+                var buffer = arena.allocate(Integer.BYTES);
+                for (int i = 0; i <= I2CFlag.MAX_7BIT_DEVICES; i++) {
+                    // scan always uses the main file descriptor, so no file descriptors are opened for absent devices
+                    // status calls are used, since absent device is the normal result of scan
+                    var status = IoctlStatus.call(i2cFileDescriptor, Command.getI2CSlave(), i);
+                    if (!IoctlStatus.isSuccess(status)) {
+                        var busy = status == -Errno.EBUSY;
+                        addressStatusMap.put(i, busy ? I2CStatus.BUSY : I2CStatus.UNKNOWN);
+                        if (busy) {
+                            logger.debug("{} - Found busy device at address {}!", path, IntegerToHex.convert(i));
+                        }
+                        continue;
+                    }
+                    if (IoctlStatus.isSuccess(probeRead(probe, i, buffer))) {
+                        addressStatusMap.put(i, I2CStatus.AVAILABLE);
+                        logger.debug("{} - Found available device at address {}!", path, IntegerToHex.convert(i));
+                    } else {
+                        addressStatusMap.put(i, I2CStatus.NOT_AVAILABLE);
+                    }
                 }
             }
+            // scan changes the address of main file descriptor, so previously selected address is selected again
+            this.selectedAddress = -1;
+            this.activeFileDescriptor = i2cFileDescriptor;
+            restoreAddressAfterScan(previousAddress);
+            logger.debug("{} - found {} devices!", path, addressStatusMap.entrySet()
+                    .stream().filter(e -> e.getValue().equals(I2CStatus.AVAILABLE) || e.getValue().equals(I2CStatus.BUSY)).count());
+            return addressStatusMap;
+        }
+    }
 
-            try {
-                readInternal(0x00);
-                addressStatusMap.put(i, I2CStatus.AVAILABLE);
-                logger.debug("{} - Found available device at address {}!", path, IntegerToHex.convert(i));
-            } catch (NativeMemoryException e) {
-                addressStatusMap.put(i, I2CStatus.NOT_AVAILABLE);
+    /**
+     * Scans the i2c bus for devices with SMBus probes in the same way as i2cdetect does. Reserved addresses are skipped.
+     *
+     * @return map of scanned addresses with corresponding statuses (AVAILABLE, BUSY, NOT_AVAILABLE, UNKNOWN)
+     */
+    public Map<Integer, I2CStatus> quickScan() {
+        return quickScan(I2CFlag.FIRST_7BIT_ADDRESS, I2CFlag.LAST_7BIT_ADDRESS);
+    }
+
+    /**
+     * Scans the given range of i2c bus addresses for devices with SMBus probes in the same way as i2cdetect does.
+     * Every address is probed with single quick write command, which does not transfer any data.
+     * Addresses 0x30-0x37 and 0x50-0x5F are probed with read byte command (or raw I2C read) instead, because quick write can corrupt EEPROMs.
+     * If no read probe is supported, these addresses are not touched and reported as UNKNOWN.
+     * If probe command is not supported, register 0x00 is read with any supported read. Reserved addresses 0x00-0x07 and 0x78-0x7F are skipped.
+     *
+     * @param firstAddress first address to scan
+     * @param lastAddress  last address to scan
+     * @return map of scanned addresses with corresponding statuses (AVAILABLE, BUSY, NOT_AVAILABLE, UNKNOWN)
+     */
+    public Map<Integer, I2CStatus> quickScan(int firstAddress, int lastAddress) {
+        synchronized (busLock) {
+            var first = Math.max(firstAddress, I2CFlag.FIRST_7BIT_ADDRESS);
+            var last = Math.min(lastAddress, I2CFlag.LAST_7BIT_ADDRESS);
+            logger.debug("{} - start quick scan of I2CBus for available devices from {} to {}...", path,
+                    IntegerToHex.convert(first), IntegerToHex.convert(last));
+            var quick = functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_QUICK);
+            var readByte = functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_READ_BYTE);
+            var previousAddress = selectedAddress;
+            Map<Integer, I2CStatus> addressStatusMap = new HashMap<>();
+            try (var probe = new SMBusTransfer(); var arena = Arena.ofConfined()) {
+                var buffer = arena.allocate(Integer.BYTES);
+                for (int i = first; i <= last; i++) {
+                    var status = IoctlStatus.call(i2cFileDescriptor, Command.getI2CSlave(), i);
+                    if (!IoctlStatus.isSuccess(status)) {
+                        var busy = status == -Errno.EBUSY;
+                        addressStatusMap.put(i, busy ? I2CStatus.BUSY : I2CStatus.UNKNOWN);
+                        if (busy) {
+                            logger.debug("{} - Found busy device at address {}!", path, IntegerToHex.convert(i));
+                        }
+                        continue;
+                    }
+                    var eepromRange = (i >= 0x30 && i <= 0x37) || (i >= 0x50 && i <= 0x5F);
+                    if (readByte && (eepromRange || !quick)) {
+                        status = probe.call(i2cFileDescriptor, I2CFlag.I2C_SMBUS_READ, 0, I2CFlag.I2C_SMBUS_BYTE, true);
+                    } else if (eepromRange) {
+                        // never write to EEPROM ranges, only raw I2C read is left as a safe probe
+                        if (!rawI2C) {
+                            addressStatusMap.put(i, I2CStatus.UNKNOWN);
+                            continue;
+                        }
+                        status = probeRead(probe, i, buffer);
+                    } else if (quick) {
+                        status = probe.call(i2cFileDescriptor, I2CFlag.I2C_SMBUS_WRITE, 0, I2CFlag.I2C_SMBUS_QUICK, false);
+                    } else {
+                        status = probeRead(probe, i, buffer);
+                    }
+                    if (IoctlStatus.isSuccess(status)) {
+                        addressStatusMap.put(i, I2CStatus.AVAILABLE);
+                        logger.debug("{} - Found available device at address {}!", path, IntegerToHex.convert(i));
+                    } else {
+                        addressStatusMap.put(i, I2CStatus.NOT_AVAILABLE);
+                    }
+                }
             }
+            // scan changes the address of main file descriptor, so previously selected address is selected again
             this.selectedAddress = -1;
+            this.activeFileDescriptor = i2cFileDescriptor;
+            restoreAddressAfterScan(previousAddress);
+            logger.debug("{} - found {} devices!", path, addressStatusMap.entrySet()
+                    .stream().filter(e -> e.getValue().equals(I2CStatus.AVAILABLE) || e.getValue().equals(I2CStatus.BUSY)).count());
+            return addressStatusMap;
         }
-        logger.debug("{} - found {} devices!", path, addressStatusMap.entrySet()
-                .stream().filter(e -> e.getValue().equals(I2CStatus.AVAILABLE) || e.getValue().equals(I2CStatus.BUSY)).count());
-        return addressStatusMap;
     }
 
     /**
-     * Selects the device address for communication.
+     * Probes the selected address by reading register 0x00 without throwing exception.
+     * With raw I2C the register is read with I2C_RDWR, otherwise the probe is picked from supported SMBus functionalities
+     * (read word, read byte data, read byte or quick write), so adapters without block reads can still find devices.
+     *
+     * @param probe   SMBus transfer to be used
+     * @param address address to probe, it must be selected on the main file descriptor
+     * @param buffer  native buffer of at least 4 bytes for read data
+     * @return zero or positive value if device answered, otherwise negative errno
+     */
+    private int probeRead(SMBusTransfer probe, int address, MemorySegment buffer) {
+        if (rawI2C) {
+            return access.tryRead(i2cFileDescriptor, address, 0, 0x00, buffer);
+        }
+        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_READ_WORD_DATA)) {
+            return probe.call(i2cFileDescriptor, I2CFlag.I2C_SMBUS_READ, 0x00, I2CFlag.I2C_SMBUS_WORD_DATA, true);
+        }
+        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_READ_BYTE_DATA)) {
+            return probe.call(i2cFileDescriptor, I2CFlag.I2C_SMBUS_READ, 0x00, I2CFlag.I2C_SMBUS_BYTE_DATA, true);
+        }
+        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_READ_BYTE)) {
+            return probe.call(i2cFileDescriptor, I2CFlag.I2C_SMBUS_READ, 0, I2CFlag.I2C_SMBUS_BYTE, true);
+        }
+        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_QUICK)) {
+            return probe.call(i2cFileDescriptor, I2CFlag.I2C_SMBUS_WRITE, 0, I2CFlag.I2C_SMBUS_QUICK, false);
+        }
+        return -Errno.EOPNOTSUPP;
+    }
+
+    /**
+     * Selects the device address for communication. Selecting the address which is already selected does not issue any ioctl call.
      *
      * @param address device address on the bus
      * @throws NativeMemoryException if the address cannot be selected
      */
     public void selectAddress(int address) throws NativeMemoryException {
-        logger.debug("{} - selecting address '{}'.", path, IntegerToHex.convert(address));
-        selectAddressInternal(address);
+        synchronized (busLock) {
+            if (address == selectedAddress) {
+                return;
+            }
+            logger.debug("{} - selecting address '{}'.", path, IntegerToHex.convert(address));
+            selectAddressInternal(address);
+        }
     }
 
     /**
@@ -147,12 +361,39 @@ public class I2CBus implements AutoCloseable {
      * @throws NativeMemoryException if the address cannot be selected
      */
     public void selectAddress(int address, boolean tenBitsAddress) throws NativeMemoryException {
-        if (tenBitsAddress && functionalityMap.get(I2CFunctionality.I2C_FUNC_10BIT_ADDR)) {
-            IOCTL.callByValue(i2cFileDescriptor, Command.getI2CTenBit(), 1);
-        } else {
-            throw new NativeMemoryException("Cannot set 10bit address, because device '" + path + "' does not support 10bit addressing extension.");
+        synchronized (busLock) {
+            if (perAddressFileDescriptors) {
+                throw new RuntimeException("10bit addressing is not supported with per-address file descriptors.");
+            }
+            if (tenBitsAddress && functionalityMap.get(I2CFunctionality.I2C_FUNC_10BIT_ADDR)) {
+                IOCTL.callByValue(i2cFileDescriptor, Command.getI2CTenBit(), 1);
+                this.messageFlags = I2CFlag.I2C_M_TEN;
+                // the same address in 10bit map is a different device, so it must be selected again
+                this.selectedAddress = -1;
+            } else {
+                throw new NativeMemoryException("Cannot set 10bit address, because device '" + path + "' does not support 10bit addressing extension.");
+            }
+            selectAddress(address);
+        }
+    }
+
+    /**
+     * Enables or disables per-address mode. In this mode every selected device address gets its own file descriptor of the same adapter,
+     * which is bound to the address only once. Alternating access to several devices does not need any address switching ioctl calls.
+     * Disabling the mode closes all per-address file descriptors, so the address must be selected again.
+     *
+     * @param enabled true to open file descriptor per device address
+     * @throws NativeMemoryException if there is issue while closing file descriptors
+     */
+    public void setPerAddressFileDescriptors(boolean enabled) throws NativeMemoryException {
+        synchronized (busLock) {
+            if (enabled == perAddressFileDescriptors) {
+                return;
+            }
+            logger.debug("{} - {} per-address file descriptors mode.", path, enabled ? "enabling" : "disabling");
+            closeAddressFileDescriptors();
+            this.perAddressFileDescriptors = enabled;
         }
-        selectAddress(address);
     }
 
     /**
@@ -163,25 +404,28 @@ public class I2CBus implements AutoCloseable {
      * @throws NativeMemoryException if address is not selected or there is issue while writing the data
      */
     public void write(int registerAddress, int data) throws NativeMemoryException {
-        checkAddressSelected();
-        logger.debug("{} - writing to '{}' with data '{}'.", path, IntegerToHex.convert(registerAddress), IntegerToHex.convert(data));
-        writeInternal(registerAddress, data);
+        synchronized (busLock) {
+            checkAddressSelected();
+            logger.debug("{} - writing to '{}' with data '{}'.", path, IntegerToHex.convert(registerAddress), IntegerToHex.convert(data));
+            writeInternal(registerAddress, data);
+        }
     }
 
     /**
      * Writes the data array into the register address of device selected previously.
+     * With raw I2C the data is sent as single message, with SMBus it is split into 32 bytes blocks.
      *
      * @param registerAddress register address of selected device
-     * @param data            data array to be written
+     * @param data            data array to be written (up to 8191 bytes with raw I2C)
      * @throws NativeMemoryException if address is not selected or there is issue while writing the data
      */
     public void write(int registerAddress, byte[] data) throws NativeMemoryException {
-        checkAddressSelected();
-        if (data.length > I2CFlag.I2C_SMBUS_BLOCK_MAX) {
-            throw new RuntimeException("The size of write block data must not be more than 32 bytes.");
+        synchronized (busLock) {
+            checkAddressSelected();
+            checkTransferSize(data.length, "write");
+            logger.debug("{} - writing to '{}' with data '{}'.", path, IntegerToHex.convert(registerAddress), Arrays.toString(data));
+            writeInternal(registerAddress, data);
         }
-        logger.debug("{} - writing to '{}' with data '{}'.", path, IntegerToHex.convert(registerAddress), Arrays.toString(data));
-        writeInternal(registerAddress, data);
     }
 
     /**
@@ -192,26 +436,433 @@ public class I2CBus implements AutoCloseable {
      * @throws NativeMemoryException if address is not selected or there is issue while reading the data
      */
     public int read(int registerAddress) throws NativeMemoryException {
-        checkAddressSelected();
-        logger.debug("{} - reading from '{}'.", path, IntegerToHex.convert(registerAddress));
-        return readInternal(registerAddress);
+        synchronized (busLock) {
+            checkAddressSelected();
+            logger.debug("{} - reading from '{}'.", path, IntegerToHex.convert(registerAddress));
+            return readInternal(registerAddress);
+        }
     }
 
     /**
      * Reads the data array from the register address of device selected previously.
+     * With raw I2C the data is read as single message, with SMBus it is split into 32 bytes blocks.
      *
      * @param registerAddress register address of selected device
-     * @param size            the size of the data tob read (should not be more than 32 bytes!)
+     * @param size            the size of the data to read (up to 8191 bytes with raw I2C)
      * @return data array read from register
      * @throws NativeMemoryException if address is not selected or there is issue while reading the data
      */
     public byte[] read(int registerAddress, int size) throws NativeMemoryException {
-        checkAddressSelected();
-        if (size > I2CFlag.I2C_SMBUS_BLOCK_MAX) {
-            throw new RuntimeException("The size of read block data must not be more than 32 bytes.");
+        synchronized (busLock) {
+            checkAddressSelected();
+            checkTransferSize(size, "read");
+            logger.debug("{} - reading from '{}' {} bytes.", path, IntegerToHex.convert(registerAddress), size);
+            return readInternal(registerAddress, size);
+        }
+    }
+
+    /**
+     * Writes the data from caller-owned native segment into the register address of device selected previously.
+     * The register address is prefixed in the native scratch area of the bus, so no heap memory is allocated.
+     *
+     * @param registerAddress register address of selected device
+     * @param source          native segment with data to be written (up to 8191 bytes with raw I2C)
+     * @throws NativeMemoryException if address is not selected or there is issue while writing the data
+     */
+    public void write(int registerAddress, MemorySegment source) throws NativeMemoryException {
+        synchronized (busLock) {
+            checkAddressSelected();
+            checkNativeSegment(source, "write");
+            logger.debug("{} - writing to '{}' {} bytes from native segment.", path, IntegerToHex.convert(registerAddress), source.byteSize());
+            access.write(activeFileDescriptor, selectedAddress, messageFlags, registerAddress, source);
+        }
+    }
+
+    /**
+     * Writes the remaining data from direct buffer into the register address of device selected previously.
+     * Position of the buffer is advanced by the number of bytes written.
+     *
+     * @param registerAddress register address of selected device
+     * @param source          direct buffer with data to be written (up to 8191 bytes with raw I2C)
+     * @throws NativeMemoryException if address is not selected or there is issue while writing the data
+     */
+    public void write(int registerAddress, ByteBuffer source) throws NativeMemoryException {
+        var segment = ofDirectBuffer(source);
+        write(registerAddress, segment);
+        source.position(source.position() + (int) segment.byteSize());
+    }
+
+    /**
+     * Reads the data from the register address of device selected previously into caller-owned native segment.
+     * The size of the segment is the size of data to read, data is read directly into segment without copying.
+     *
+     * @param registerAddress register address of selected device
+     * @param destination     native segment to be filled with data (up to 8191 bytes with raw I2C)
+     * @throws NativeMemoryException if address is not selected or there is issue while reading the data
+     */
+    public void read(int registerAddress, MemorySegment destination) throws NativeMemoryException {
+        synchronized (busLock) {
+            checkAddressSelected();
+            checkNativeSegment(destination, "read");
+            logger.debug("{} - reading from '{}' {} bytes into native segment.", path, IntegerToHex.convert(registerAddress), destination.byteSize());
+            access.read(activeFileDescriptor, selectedAddress, messageFlags, registerAddress, destination);
+        }
+    }
+
+    /**
+     * Reads the data from the register address of device selected previously into the remaining space of direct buffer.
+     * Position of the buffer is advanced by the number of bytes read.
+     *
+     * @param registerAddress register address of selected device
+     * @param destination     direct buffer to be filled with data (up to 8191 bytes with raw I2C)
+     * @throws NativeMemoryException if address is not selected or there is issue while reading the data
+     */
+    public void read(int registerAddress, ByteBuffer destination) throws NativeMemoryException {
+        var segment = ofDirectBuffer(destination);
+        read(registerAddress, segment);
+        destination.position(destination.position() + (int) segment.byteSize());
+    }
+
+    /**
+     * Checks if the bus supports raw I2C messages (I2C_FUNC_I2C), which are needed for combined transfers and large blocks.
+     *
+     * @return true if raw I2C is supported
+     */
+    public boolean isRawI2C() {
+        return rawI2C;
+    }
+
+    /**
+     * Executes combined transaction with given device: write message followed by read message with repeated start.
+     * Messages are not prefixed with register address, so any device protocol can be used (e.g. 16-bit memory addresses of EEPROM).
+     * Requires raw I2C support.
+     *
+     * @param address device address on the bus
+     * @param write   native segment with data to be written, empty to skip write message
+     * @param read    native segment to be filled with data, empty to skip read message
+     * @throws NativeMemoryException if there is issue while executing transaction
+     */
+    public void transfer(int address, MemorySegment write, MemorySegment read) throws NativeMemoryException {
+        synchronized (busLock) {
+            checkTransfer(write, read);
+            rawAccess.transfer(i2cFileDescriptor, address, messageFlags, write, read);
+        }
+    }
+
+    /**
+     * Executes combined transaction with given device without throwing exception, e.g. for ACK polling.
+     * Requires raw I2C support.
+     *
+     * @param address device address on the bus
+     * @param write   native segment with data to be written, empty to skip write message
+     * @param read    native segment to be filled with data, empty to skip read message
+     * @return zero or positive value if successful, otherwise negative errno (see {@link Errno})
+     */
+    public int tryTransfer(int address, MemorySegment write, MemorySegment read) {
+        synchronized (busLock) {
+            checkTransfer(write, read);
+            return rawAccess.tryTransfer(i2cFileDescriptor, address, messageFlags, write, read);
+        }
+    }
+
+    /**
+     * Selects the device address for communication without throwing exception, e.g. for probing and retry loops.
+     *
+     * @param address device address on the bus
+     * @return zero if successful, otherwise negative errno (see {@link Errno})
+     */
+    public int trySelectAddress(int address) {
+        synchronized (busLock) {
+            if (address == selectedAddress) {
+                return 0;
+            }
+            if (perAddressFileDescriptors) {
+                var fd = addressFileDescriptors.get(address);
+                if (fd == null) {
+                    logger.debug("{} - opening device file for address '{}'.", path, IntegerToHex.convert(address));
+                    try {
+                        fd = FILE.open(path, FileFlag.O_RDWR);
+                    } catch (NativeMemoryException e) {
+                        logger.debug("{} - error while opening device file for address '{}'.", path, IntegerToHex.convert(address), e);
+                        return -Errno.EIO;
+                    }
+                    // absent device is the normal result here, so the fd is bound with status call
+                    var status = IoctlStatus.call(fd, Command.getI2CSlave(), address);
+                    if (!IoctlStatus.isSuccess(status)) {
+                        closeQuietly(fd);
+                        return status;
+                    }
+                    addressFileDescriptors.put(address, fd);
+                }
+                this.activeFileDescriptor = fd;
+                this.selectedAddress = address;
+                return 0;
+            }
+            var status = IoctlStatus.call(i2cFileDescriptor, Command.getI2CSlave(), address);
+            if (IoctlStatus.isSuccess(status)) {
+                this.selectedAddress = address;
+                this.activeFileDescriptor = i2cFileDescriptor;
+            }
+            return status;
+        }
+    }
+
+    /**
+     * Writes the data from native segment into the register address of device selected previously without throwing exception.
+     * Absent or busy device is reported with status, so probing and retry loops do not create any exception objects.
+     *
+     * @param registerAddress register address of selected device
+     * @param source          native segment with data to be written (up to 8191 bytes with raw I2C)
+     * @return zero or positive value if successful, otherwise negative errno (see {@link Errno})
+     */
+    public int tryWrite(int registerAddress, MemorySegment source) {
+        synchronized (busLock) {
+            checkAddressSelected();
+            checkNativeSegment(source, "write");
+            return access.tryWrite(activeFileDescriptor, selectedAddress, messageFlags, registerAddress, source);
+        }
+    }
+
+    /**
+     * Reads the data from the register address of device selected previously into native segment without throwing exception.
+     * Absent or busy device is reported with status, so probing and retry loops do not create any exception objects.
+     *
+     * @param registerAddress register address of selected device
+     * @param destination     native segment to be filled with data (up to 8191 bytes with raw I2C)
+     * @return zero or positive value if successful, otherwise negative errno (see {@link Errno})
+     */
+    public int tryRead(int registerAddress, MemorySegment destination) {
+        synchronized (busLock) {
+            checkAddressSelected();
+            checkNativeSegment(destination, "read");
+            return access.tryRead(activeFileDescriptor, selectedAddress, messageFlags, registerAddress, destination);
+        }
+    }
+
+    /**
+     * Reads the data array from the register address of device selected previously asynchronously.
+     * Read is submitted to the arbiter of this bus and executed on its dedicated worker thread, see {@link #getArbiter()}.
+     *
+     * @param registerAddress register address of selected device
+     * @param size            the size of the data to read (up to 8191 bytes, split into 32 bytes blocks in SMBus mode)
+     * @return future of data array read from register
+     */
+    public CompletableFuture<byte[]> readAsync(int registerAddress, int size) {
+        return getArbiter().submit(getSelectedAddress(), new I2CBatch().read(registerAddress, size)).thenApply(List::getFirst);
+    }
+
+    /**
+     * Writes the data array into the register address of device selected previously asynchronously.
+     * Write is submitted to the arbiter of this bus and executed on its dedicated worker thread, see {@link #getArbiter()}.
+     *
+     * @param registerAddress register address of selected device
+     * @param data            data array to be written
+     * @return future completed when data is written
+     */
+    public CompletableFuture<Void> writeAsync(int registerAddress, byte[] data) {
+        return getArbiter().submit(getSelectedAddress(), new I2CBatch().write(registerAddress, data)).thenApply(result -> null);
+    }
+
+    /**
+     * Executes the batch of register writes and reads with device selected previously.
+     * Operations are packed into I2C_RDWR transactions of up to 42 messages, each transaction is a single ioctl call.
+     * If raw I2C is not supported, operations are executed one by one through SMBus.
+     *
+     * @param batch batch of operations
+     * @return list of data arrays read, in the order of reads in batch
+     * @throws NativeMemoryException if address is not selected or there is issue while executing the batch
+     */
+    public List<byte[]> execute(I2CBatch batch) throws NativeMemoryException {
+        synchronized (busLock) {
+            checkAddressSelected();
+            return execute(selectedAddress, batch);
+        }
+    }
+
+    /**
+     * Executes the batch of register writes and reads with given device address.
+     * Operations are packed into I2C_RDWR transactions of up to 42 messages, each transaction is a single ioctl call.
+     * If raw I2C is not supported, the address is selected and operations are executed one by one through SMBus,
+     * previously selected address is restored afterward.
+     *
+     * @param address device address on the bus
+     * @param batch   batch of operations
+     * @return list of data arrays read, in the order of reads in batch
+     * @throws NativeMemoryException if there is issue while executing the batch
+     */
+    public List<byte[]> execute(int address, I2CBatch batch) throws NativeMemoryException {
+        synchronized (busLock) {
+            logger.debug("{} - executing batch with '{}': {}.", path, IntegerToHex.convert(address), batch);
+            var result = new ArrayList<byte[]>(batch.getReadCount());
+            if (batch.isEmpty()) {
+                return result;
+            }
+            if (rawI2C) {
+                var reads = new ArrayList<MemorySegment>(batch.getReadCount());
+                try (var transaction = new I2CTransaction(I2CFlag.I2C_RDWR_IOCTL_MAX_MSGS)) {
+                    for (var operation : batch.getOperations()) {
+                        // register write and read of one operation must stay in the same transaction
+                        var messages = operation.isRead() ? 2 : 1;
+                        if (transaction.size() + messages > I2CFlag.I2C_RDWR_IOCTL_MAX_MSGS) {
+                            transaction.execute(i2cFileDescriptor);
+                        }
+                        if (operation.isRead()) {
+                            transaction.write(address, messageFlags, operation.registerAddress(), new byte[]{});
+                            reads.add(transaction.read(address, messageFlags, operation.readSize()));
+                        } else {
+                            transaction.write(address, messageFlags, operation.registerAddress(), operation.data());
+                        }
+                    }
+                    transaction.execute(i2cFileDescriptor);
+                    for (var read : reads) {
+                        result.add(read.toArray(ValueLayout.JAVA_BYTE));
+                    }
+                }
+            } else {
+                var previousAddress = selectedAddress;
+                try {
+                    selectAddressInternal(address);
+                    for (var operation : batch.getOperations()) {
+                        if (operation.isRead()) {
+                            result.add(readInternal(operation.registerAddress(), operation.readSize()));
+                        } else {
+                            writeInternal(operation.registerAddress(), operation.data());
+                        }
+                    }
+                } finally {
+                    restoreAddress(previousAddress);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Reads registers of many devices as one combined I2C_RDWR transaction, which gives near-simultaneous snapshot of the devices.
+     * Data read is placed into the buffer one after another in the order of reads.
+     * Up to 21 reads are executed with one ioctl call, longer lists are split into several transactions.
+     * If raw I2C is not supported, every device is selected and read through SMBus, previously selected address is restored afterward.
+     *
+     * @param reads  list of register reads
+     * @param buffer buffer to be filled with data read, must fit the total length of reads
+     * @return number of bytes placed into buffer
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    public int readSnapshot(List<I2CRegisterRead> reads, byte[] buffer) throws NativeMemoryException {
+        synchronized (busLock) {
+            var total = 0;
+            for (var read : reads) {
+                total += read.length();
+            }
+            if (total > buffer.length) {
+                throw new RuntimeException("The size of buffer (" + buffer.length + ") is less than total size of reads (" + total + ").");
+            }
+            logger.debug("{} - reading snapshot of {} registers, {} bytes.", path, reads.size(), total);
+            var offset = 0;
+            if (rawI2C) {
+                try (var transaction = new I2CTransaction(I2CFlag.I2C_RDWR_IOCTL_MAX_MSGS)) {
+                    var segments = new MemorySegment[reads.size()];
+                    var executed = 0;
+                    for (int i = 0; i < reads.size(); i++) {
+                        if (transaction.size() + 2 > I2CFlag.I2C_RDWR_IOCTL_MAX_MSGS) {
+                            transaction.execute(i2cFileDescriptor);
+                            offset = copySnapshot(segments, executed, i, buffer, offset);
+                            executed = i;
+                        }
+                        var read = reads.get(i);
+                        transaction.write(read.address(), 0, read.registerAddress(), new byte[]{});
+                        segments[i] = transaction.read(read.address(), 0, read.length());
+                    }
+                    transaction.execute(i2cFileDescriptor);
+                    offset = copySnapshot(segments, executed, reads.size(), buffer, offset);
+                }
+            } else {
+                var previousAddress = selectedAddress;
+                try {
+                    for (var read : reads) {
+                        selectAddressInternal(read.address());
+                        var data = readInternal(read.registerAddress(), read.length());
+                        System.arraycopy(data, 0, buffer, offset, read.length());
+                        offset += read.length();
+                    }
+                } finally {
+                    restoreAddress(previousAddress);
+                }
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * Copies data of executed reads into the buffer.
+     *
+     * @param segments native buffers of reads
+     * @param from     index of the first read to copy
+     * @param to       index of the read to stop before
+     * @param buffer   destination buffer
+     * @param offset   offset in destination buffer
+     * @return offset in destination buffer after copied data
+     */
+    private int copySnapshot(MemorySegment[] segments, int from, int to, byte[] buffer, int offset) {
+        for (int i = from; i < to; i++) {
+            var length = (int) segments[i].byteSize();
+            MemorySegment.copy(segments[i], ValueLayout.JAVA_BYTE, 0, buffer, offset, length);
+            offset += length;
+        }
+        return offset;
+    }
+
+    /**
+     * Reads the data from the register address of given device into native segment.
+     * The device address is selected if needed and previously selected address is restored afterward, with raw I2C only messages are addressed.
+     *
+     * @param address         device address on the bus
+     * @param registerAddress register address of device
+     * @param destination     native segment to be filled with data
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    void read(int address, int registerAddress, MemorySegment destination) throws NativeMemoryException {
+        synchronized (busLock) {
+            if (rawI2C) {
+                access.read(i2cFileDescriptor, address, messageFlags, registerAddress, destination);
+                return;
+            }
+            var previousAddress = selectedAddress;
+            try {
+                selectAddressInternal(address);
+                access.read(activeFileDescriptor, address, messageFlags, registerAddress, destination);
+            } finally {
+                restoreAddress(previousAddress);
+            }
+        }
+    }
+
+    /**
+     * Selects the address, which was selected before the operation with other device.
+     *
+     * @param previousAddress previously selected address, -1 if no address was selected
+     * @throws NativeMemoryException if the address cannot be selected
+     */
+    private void restoreAddress(int previousAddress) throws NativeMemoryException {
+        if (previousAddress == -1) {
+            this.selectedAddress = -1;
+            this.activeFileDescriptor = i2cFileDescriptor;
+            return;
+        }
+        selectAddressInternal(previousAddress);
+    }
+
+    /**
+     * Selects the address, which was selected before the scan. Error is only logged, since scan itself is finished.
+     *
+     * @param previousAddress previously selected address, -1 if no address was selected
+     */
+    private void restoreAddressAfterScan(int previousAddress) {
+        try {
+            restoreAddress(previousAddress);
+        } catch (NativeMemoryException e) {
+            logger.warn("{} - cannot select address '{}' again after scan.", path, IntegerToHex.convert(previousAddress), e);
         }
-        logger.debug("{} - reading from '{}' {} bytes.", path, IntegerToHex.convert(registerAddress), size);
-        return readInternal(registerAddress, size);
     }
 
     /**
@@ -221,10 +872,57 @@ public class I2CBus implements AutoCloseable {
      * @throws NativeMemoryException if the address cannot be selected
      */
     private void selectAddressInternal(int address) throws NativeMemoryException {
-        IOCTL.callByValue(i2cFileDescriptor, Command.getI2CSlave(), address);
+        if (address == selectedAddress) {
+            return;
+        }
+        if (perAddressFileDescriptors) {
+            var fd = addressFileDescriptors.get(address);
+            if (fd == null) {
+                logger.debug("{} - opening device file for address '{}'.", path, IntegerToHex.convert(address));
+                fd = FILE.open(path, FileFlag.O_RDWR);
+                try {
+                    IOCTL.callByValue(fd, Command.getI2CSlave(), address);
+                } catch (NativeMemoryException e) {
+                    FILE.close(fd);
+                    throw e;
+                }
+                addressFileDescriptors.put(address, fd);
+            }
+            this.activeFileDescriptor = fd;
+        } else {
+            IOCTL.callByValue(i2cFileDescriptor, Command.getI2CSlave(), address);
+            this.activeFileDescriptor = i2cFileDescriptor;
+        }
         this.selectedAddress = address;
     }
 
+    /**
+     * Closes file descriptor, which was not bound to device address, error of close is only logged.
+     *
+     * @param fd file descriptor to be closed
+     */
+    private void closeQuietly(int fd) {
+        try {
+            FILE.close(fd);
+        } catch (NativeMemoryException e) {
+            logger.debug("{} - error while closing device file {}.", path, fd, e);
+        }
+    }
+
+    /**
+     * Closes file descriptors bound to device addresses.
+     *
+     * @throws NativeMemoryException if there is issue while closing file descriptors
+     */
+    private void closeAddressFileDescriptors() throws NativeMemoryException {
+        for (var fd : addressFileDescriptors.values()) {
+            FILE.close(fd);
+        }
+        addressFileDescriptors.clear();
+        this.activeFileDescriptor = i2cFileDescriptor;
+        this.selectedAddress = -1;
+    }
+
     /**
      * Internal method.
      * Writes the data byte into the register address of device selected previously.
@@ -234,18 +932,7 @@ public class I2CBus implements AutoCloseable {
      * @throws NativeMemoryException if address is not selected or there is issue while writing the data
      */
     private void writeInternal(int registerAddress, int data) throws NativeMemoryException {
-        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_I2C)) {
-            var buffer = new byte[2];
-            buffer[0] = (byte) registerAddress;
-            buffer[1] = (byte) data;
-            FILE.write(i2cFileDescriptor, buffer);
-        } else if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_WRITE_I2C_BLOCK)) {
-            var smbusData = new SMBusIoctlData(I2CFlag.I2C_SMBUS_WRITE, (byte) registerAddress, I2CFlag.I2C_SMBUS_WORD_DATA,
-                    new SMBusData((byte) data, (short) 0, new byte[]{}));
-            IOCTL.call(i2cFileDescriptor, Command.getI2CSMBus(), smbusData);
-        } else {
-            throw new NativeMemoryException("No available write method is supported!");
-        }
+        access.write(activeFileDescriptor, selectedAddress, messageFlags, registerAddress, data);
     }
 
     /**
@@ -257,21 +944,7 @@ public class I2CBus implements AutoCloseable {
      * @throws NativeMemoryException if address is not selected or there is issue while writing the data
      */
     private void writeInternal(int registerAddress, byte[] data) throws NativeMemoryException {
-        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_I2C)) {
-            var buffer = new byte[data.length + 1];
-            buffer[0] = (byte) registerAddress;
-            System.arraycopy(data, 0, buffer, 1, data.length);
-            FILE.write(i2cFileDescriptor, buffer);
-        } else if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_WRITE_I2C_BLOCK)) {
-            var buffer = new byte[data.length + 1];
-            buffer[0] = (byte) data.length;
-            System.arraycopy(data, 0, buffer, 1, data.length);
-            var smbusData = new SMBusIoctlData(I2CFlag.I2C_SMBUS_WRITE, (byte) registerAddress, I2CFlag.I2C_SMBUS_I2C_BLOCK_DATA,
-                    new SMBusData((byte) 0, (short) 0, buffer));
-            IOCTL.call(i2cFileDescriptor, Command.getI2CSMBus(), smbusData);
-        } else {
-            throw new NativeMemoryException("No available write method is supported!");
-        }
+        access.write(activeFileDescriptor, selectedAddress, messageFlags, registerAddress, data);
     }
 
     /**
@@ -283,20 +956,7 @@ public class I2CBus implements AutoCloseable {
      * @throws NativeMemoryException if address is not selected or there is issue while reading the data
      */
     private int readInternal(int registerAddress) throws NativeMemoryException {
-        var result = 0;
-        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_I2C)) {
-            FILE.write(i2cFileDescriptor, new byte[]{(byte) registerAddress});
-            var buffer = FILE.read(i2cFileDescriptor, new byte[4], 4);
-            result = ByteBuffer.wrap(buffer).order(ByteOrder.nativeOrder()).getInt();
-        } else if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_READ_WORD_DATA)) {
-            var smbusData = new SMBusIoctlData(I2CFlag.I2C_SMBUS_READ, (byte) registerAddress, I2CFlag.I2C_SMBUS_WORD_DATA,
-                    SMBusData.createEmpty());
-            var tempResult = IOCTL.call(i2cFileDescriptor, Command.getI2CSMBus(), smbusData);
-            result = tempResult.data()._byte();
-        } else {
-            throw new NativeMemoryException("No available read method is supported!");
-        }
-        return result;
+        return access.read(activeFileDescriptor, selectedAddress, messageFlags, registerAddress);
     }
 
     /**
@@ -304,26 +964,81 @@ public class I2CBus implements AutoCloseable {
      * Reads the data array from the register address of device selected previously.
      *
      * @param registerAddress register address of selected device
-     * @param size            the size of the data tob read (should not be more than 32 bytes!)
+     * @param size            the size of the data to read (up to 8191 bytes with raw I2C)
      * @return data array read from register
      * @throws NativeMemoryException if address is not selected or there is issue while reading the data
      */
     private byte[] readInternal(int registerAddress, int size) throws NativeMemoryException {
-        var result = new byte[]{};
-        if (functionalityMap.get(I2CFunctionality.I2C_FUNC_I2C)) {
-            FILE.write(i2cFileDescriptor, new byte[]{(byte) registerAddress});
-            result = FILE.read(i2cFileDescriptor, new byte[size], size);
-        } else if (functionalityMap.get(I2CFunctionality.I2C_FUNC_SMBUS_READ_I2C_BLOCK)) {
-            var buffer = new byte[size + 1];
-            buffer[0] = (byte) size;
-            var smbusData = new SMBusIoctlData(I2CFlag.I2C_SMBUS_READ, (byte) registerAddress, I2CFlag.I2C_SMBUS_I2C_BLOCK_DATA,
-                    new SMBusData((byte) 0, (short) 0, buffer));
-            var tempResult = IOCTL.call(i2cFileDescriptor, Command.getI2CSMBus(), smbusData);
-            result = tempResult.data().block();
-        } else {
-            throw new NativeMemoryException("No available read method is supported!");
+        return access.read(activeFileDescriptor, selectedAddress, messageFlags, registerAddress, size);
+    }
+
+    /**
+     * Checks if segment is native and fits into single transfer.
+     *
+     * @param segment   segment to be checked
+     * @param operation name of operation for error message
+     */
+    private void checkNativeSegment(MemorySegment segment, String operation) {
+        if (!segment.isNative()) {
+            throw new IllegalArgumentException("Segment to " + operation + " must be native (off-heap).");
+        }
+        checkTransferSize(segment.byteSize(), operation);
+    }
+
+    /**
+     * Checks if combined transfer can be executed.
+     *
+     * @param write segment to be written
+     * @param read  segment to be read
+     */
+    private void checkTransfer(MemorySegment write, MemorySegment read) {
+        if (!rawI2C) {
+            throw new RuntimeException("Device '" + path + "' does not support raw I2C transfers.");
+        }
+        if (write.byteSize() > 0) {
+            checkNativeSegment(write, "write");
+        }
+        if (read.byteSize() > 0) {
+            checkNativeSegment(read, "read");
+        }
+    }
+
+    /**
+     * Checks the size of transfer. With raw I2C the data and register address must fit into single I2C_RDWR message,
+     * with SMBus the data is split into 32 bytes blocks, so the size is not limited.
+     *
+     * @param size      size of data
+     * @param operation name of operation for error message
+     */
+    private void checkTransferSize(long size, String operation) {
+        if (rawI2C && size > I2CFlag.I2C_RDWR_MAX_MESSAGE_SIZE - 1) {
+            throw new RuntimeException("The size of " + operation + " data must not be more than " + (I2CFlag.I2C_RDWR_MAX_MESSAGE_SIZE - 1) + " bytes.");
+        }
+    }
+
+    /**
+     * Creates native segment from remaining space of direct buffer.
+     *
+     * @param buffer direct buffer
+     * @return native segment, which shares memory with buffer
+     */
+    private MemorySegment ofDirectBuffer(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct.");
+        }
+        return MemorySegment.ofBuffer(buffer);
+    }
+
+    /**
+     * Gets the selected address under the bus lock.
+     *
+     * @return selected address
+     */
+    private int getSelectedAddress() {
+        synchronized (busLock) {
+            checkAddressSelected();
+            return selectedAddress;
         }
-        return result;
     }
 
     /**
@@ -337,6 +1052,15 @@ public class I2CBus implements AutoCloseable {
 
     @Override
     public void close() throws NativeMemoryException {
-        FILE.close(i2cFileDescriptor);
+        synchronized (this) {
+            if (arbiter != null) {
+                arbiter.close();
+            }
+        }
+        synchronized (busLock) {
+            closeAddressFileDescriptors();
+            access.close();
+            FILE.close(i2cFileDescriptor);
+        }
     }
 }
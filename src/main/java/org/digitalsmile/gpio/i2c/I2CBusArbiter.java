@@ -0,0 +1,206 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.IntegerToHex;
+import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transaction level arbiter of the I2C bus. Many threads can share one bus by submitting self-contained units of work,
+ * each unit is a device address with batch of operations. Units are executed atomically one by one on the dedicated platform thread
+ * in priority order, units with the same priority are executed in FIFO order.
+ * Submission queue is bounded by {@link #QUEUE_CAPACITY}, if it is full the returned future is completed with {@link RejectedExecutionException}.
+ * <p>
+ * Back-to-back units for the same address are merged and executed together in one I2C_RDWR transaction, which saves ioctl calls.
+ * Units are merged only while the merged batch fits into one transaction and never in SMBus mode, so the transaction either
+ * succeeds or fails for all merged units, which are completed with the same exception.
+ * <p>
+ * Instance of arbiter can only be obtained from {@link I2CBus#getArbiter()}, so every bus has its own arbiter and buses run in parallel.
+ */
+public final class I2CBusArbiter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(I2CBusArbiter.class);
+
+    /**
+     * Default priority of submitted units.
+     */
+    public static final int NORMAL_PRIORITY = 0;
+    /**
+     * Maximum number of units waiting for execution.
+     */
+    public static final int QUEUE_CAPACITY = 64;
+
+    private final I2CBus bus;
+    private final String path;
+    private final PriorityBlockingQueue<Unit> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * Creates arbiter and starts the worker thread.
+     *
+     * @param bus  I2C bus to be arbitrated
+     * @param path path of I2C bus device
+     */
+    I2CBusArbiter(I2CBus bus, String path) {
+        this.bus = bus;
+        this.path = path;
+        this.worker = Thread.ofPlatform().name("i2c-arbiter-" + path).daemon(true).start(this::work);
+    }
+
+    /**
+     * Submits the unit of work with normal priority.
+     *
+     * @param address device address on the bus
+     * @param batch   batch of operations, it is copied and can be reused by caller
+     * @return future of data arrays read, in the order of reads in batch
+     */
+    public CompletableFuture<List<byte[]>> submit(int address, I2CBatch batch) {
+        return submit(address, batch, NORMAL_PRIORITY);
+    }
+
+    /**
+     * Submits the unit of work with given priority. Units with higher priority are executed first.
+     *
+     * @param address  device address on the bus
+     * @param batch    batch of operations, it is copied and can be reused by caller
+     * @param priority priority of the unit
+     * @return future of data arrays read, in the order of reads in batch
+     */
+    public CompletableFuture<List<byte[]>> submit(int address, I2CBatch batch, int priority) {
+        var future = new CompletableFuture<List<byte[]>>();
+        if (!running) {
+            future.completeExceptionally(new RuntimeException("I2C bus arbiter of " + path + " is closed."));
+            return future;
+        }
+        if (pending.getAndUpdate(count -> count < QUEUE_CAPACITY ? count + 1 : count) >= QUEUE_CAPACITY) {
+            future.completeExceptionally(new RejectedExecutionException("I2C bus arbiter queue of " + path + " is full."));
+            return future;
+        }
+        var unit = new Unit(address, new I2CBatch().append(batch), priority, sequence.getAndIncrement(), future);
+        queue.add(unit);
+        // arbiter could be closed after the check above, then the unit is cancelled here unless close() already drained it
+        if (!running && queue.remove(unit)) {
+            pending.decrementAndGet();
+            future.cancel(false);
+        }
+        return future;
+    }
+
+    /**
+     * Gets the number of units waiting for execution.
+     *
+     * @return number of pending units
+     */
+    public int getPendingUnits() {
+        return pending.get();
+    }
+
+    /**
+     * Worker loop, executes units from the queue merging back-to-back units for the same address.
+     */
+    private void work() {
+        var merged = new ArrayList<Unit>();
+        while (running) {
+            Unit unit;
+            try {
+                unit = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            pending.decrementAndGet();
+            merged.add(unit);
+            var batch = unit.batch();
+            Unit next;
+            while ((next = queue.peek()) != null && canMerge(batch, unit.address(), next) && queue.remove(next)) {
+                if (batch == unit.batch()) {
+                    batch = new I2CBatch().append(unit.batch());
+                }
+                batch.append(next.batch());
+                merged.add(next);
+                pending.decrementAndGet();
+            }
+            if (merged.size() > 1) {
+                logger.trace("{} - merged {} units for address '{}'.", path, merged.size(), IntegerToHex.convert(unit.address()));
+            }
+            try {
+                var result = bus.execute(unit.address(), batch);
+                var offset = 0;
+                for (var done : merged) {
+                    var reads = done.batch().getReadCount();
+                    done.future().complete(List.copyOf(result.subList(offset, offset + reads)));
+                    offset += reads;
+                }
+            } catch (NativeMemoryException | RuntimeException e) {
+                logger.debug("{} - error while executing unit for address '{}'.", path, IntegerToHex.convert(unit.address()), e);
+                for (var done : merged) {
+                    done.future().completeExceptionally(e);
+                }
+            }
+            merged.clear();
+        }
+    }
+
+    /**
+     * Checks if the next unit can be merged, so the merged batch is still executed in one I2C_RDWR transaction and every unit stays atomic.
+     * SMBus mode executes operations one by one, so units are never merged there.
+     *
+     * @param batch   batch of already merged units
+     * @param address device address of merged units
+     * @param next    next unit in the queue
+     * @return true if the unit can be merged
+     */
+    private boolean canMerge(I2CBatch batch, int address, Unit next) {
+        return bus.isRawI2C() && next.address() == address
+                && batch.getMessageCount() + next.batch().getMessageCount() <= I2CFlag.I2C_RDWR_IOCTL_MAX_MSGS;
+    }
+
+    /**
+     * Stops the worker thread, pending units are cancelled.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        this.running = false;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Unit unit;
+        while ((unit = queue.poll()) != null) {
+            unit.future().cancel(false);
+        }
+    }
+
+    /**
+     * Unit of work, ordered by priority and then by sequence of submission.
+     *
+     * @param address  device address on the bus
+     * @param batch    batch of operations
+     * @param priority priority of the unit
+     * @param sequence sequence number of submission
+     * @param future   future to be completed with result
+     */
+    private record Unit(int address, I2CBatch batch, int priority, long sequence,
+                        CompletableFuture<List<byte[]>> future) implements Comparable<Unit> {
+        @Override
+        public int compareTo(Unit other) {
+            var result = Integer.compare(other.priority, priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.IntegerToHex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Reader of on-chip FIFO of I2C sensors, such as IMUs (MPU6050, ICM-20948, etc.).
+ * FIFO is drained by reading 16-bit FIFO count register and then bursting whole frames from FIFO data register
+ * straight into preallocated off-heap ring, so draining does not allocate any heap memory.
+ * <p>
+ * Frames are delivered in batches as views of the ring. Filling and consuming of the ring can be done by different threads
+ * (single producer and single consumer), or together with {@link #drain(I2CFrameProcessing)}.
+ * If the ring is full, frames are left in device FIFO until they are consumed.
+ * <p>
+ * Instance of reader can only be created from {@link I2CBus#getFifoReader(int, int, int, int, int, ByteOrder)}.
+ */
+public final class I2CFifoReader implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(I2CFifoReader.class);
+
+    private final I2CBus bus;
+    private final String path;
+    private final int address;
+    private final int countRegister;
+    private final int dataRegister;
+    private final int frameSize;
+    private final int capacity;
+    private final int maxBurstFrames;
+    private final ValueLayout.OfShort countLayout;
+
+    private final Arena offHeap = Arena.ofShared();
+    private final MemorySegment countBuffer;
+    private final MemorySegment ring;
+
+    // total number of frames written into and read from the ring
+    private volatile long head;
+    private volatile long tail;
+    private volatile long drainedBytes;
+
+    /**
+     * Creates FIFO reader with preallocated ring.
+     *
+     * @param bus            I2C bus of device
+     * @param path           path of I2C bus device
+     * @param address        device address on the bus
+     * @param countRegister  address of 16-bit FIFO count register (high byte first for big endian)
+     * @param dataRegister   address of FIFO data register
+     * @param frameSize      size of single frame in bytes
+     * @param capacity       capacity of the ring in frames
+     * @param countOrder     byte order of FIFO count register
+     * @param maxBurstSize   maximum number of bytes in single transfer
+     */
+    I2CFifoReader(I2CBus bus, String path, int address, int countRegister, int dataRegister, int frameSize, int capacity,
+                  ByteOrder countOrder, int maxBurstSize) {
+        if (frameSize <= 0 || capacity <= 0 || frameSize > maxBurstSize) {
+            throw new IllegalArgumentException("Frame size and capacity must be more than 0 and frame must fit into single transfer.");
+        }
+        this.bus = bus;
+        this.path = path;
+        this.address = address;
+        this.countRegister = countRegister;
+        this.dataRegister = dataRegister;
+        this.frameSize = frameSize;
+        this.capacity = capacity;
+        this.maxBurstFrames = maxBurstSize / frameSize;
+        this.countLayout = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(countOrder);
+        this.countBuffer = offHeap.allocate(Short.BYTES);
+        this.ring = offHeap.allocate((long) frameSize * capacity);
+    }
+
+    /**
+     * Reads FIFO count and bursts all whole frames, which fit into the ring.
+     *
+     * @return number of frames read from device
+     * @throws NativeMemoryException if there is issue while reading the FIFO
+     */
+    public int fill() throws NativeMemoryException {
+        bus.read(address, countRegister, countBuffer);
+        var available = Short.toUnsignedInt(countBuffer.get(countLayout, 0)) / frameSize;
+        var frames = (int) Math.min(available, capacity - (head - tail));
+        if (frames == 0) {
+            return 0;
+        }
+        var written = head;
+        var left = frames;
+        while (left > 0) {
+            var index = (int) (written % capacity);
+            // single burst must be contiguous in the ring and fit into single transfer
+            var burst = Math.min(Math.min(left, capacity - index), maxBurstFrames);
+            bus.read(address, dataRegister, ring.asSlice((long) index * frameSize, (long) burst * frameSize));
+            written += burst;
+            left -= burst;
+        }
+        drainedBytes += (long) frames * frameSize;
+        // publish frames only after they are written into the ring
+        head = written;
+        logger.trace("{} - read {} frames from FIFO of '{}'.", path, frames, IntegerToHex.convert(address));
+        return frames;
+    }
+
+    /**
+     * Delivers all frames available in the ring to the processor and frees the ring.
+     * Since the ring wraps around, processor can be called twice with contiguous parts of the batch.
+     *
+     * @param processor frame processing callback
+     * @return number of frames delivered
+     */
+    public int consume(I2CFrameProcessing processor) {
+        var read = tail;
+        var frames = (int) (head - read);
+        if (frames == 0) {
+            return 0;
+        }
+        var index = (int) (read % capacity);
+        var first = Math.min(frames, capacity - index);
+        processor.process(ring.asSlice((long) index * frameSize, (long) first * frameSize), frameSize, first);
+        if (first < frames) {
+            processor.process(ring.asSlice(0, (long) (frames - first) * frameSize), frameSize, frames - first);
+        }
+        tail = read + frames;
+        return frames;
+    }
+
+    /**
+     * Drains device FIFO and delivers all frames to the processor.
+     *
+     * @param processor frame processing callback
+     * @return number of frames delivered
+     * @throws NativeMemoryException if there is issue while reading the FIFO
+     */
+    public int drain(I2CFrameProcessing processor) throws NativeMemoryException {
+        fill();
+        return consume(processor);
+    }
+
+    /**
+     * Gets the number of frames in the ring waiting for consuming.
+     *
+     * @return number of frames
+     */
+    public int getPendingFrames() {
+        return (int) (head - tail);
+    }
+
+    /**
+     * Gets the total number of bytes drained from device FIFO.
+     *
+     * @return number of bytes
+     */
+    public long getDrainedBytes() {
+        return drainedBytes;
+    }
+
+    /**
+     * Releases the ring. Reader must be recreated if you have to use it after.
+     */
+    @Override
+    public void close() {
+        offHeap.close();
+    }
+
+    @Override
+    public String toString() {
+        return "I2CFifoReader{" +
+                "path='" + path + '\'' +
+                ", address=" + IntegerToHex.convert(address) +
+                ", countRegister=" + IntegerToHex.convert(countRegister) +
+                ", dataRegister=" + IntegerToHex.convert(dataRegister) +
+                ", frameSize=" + frameSize +
+                ", capacity=" + capacity +
+                ", pendingFrames=" + getPendingFrames() +
+                ", drainedBytes=" + drainedBytes +
+                '}';
+    }
+}
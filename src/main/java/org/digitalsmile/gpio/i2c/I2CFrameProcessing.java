@@ -0,0 +1,19 @@
+package org.digitalsmile.gpio.i2c;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Callback to process the batch of frames drained from device FIFO by {@link I2CFifoReader}. Can be used as functional interface.
+ * Segment is a view of the reader ring without copying, it must not be used after the callback returns.
+ */
+@FunctionalInterface
+public interface I2CFrameProcessing {
+    /**
+     * Process contiguous batch of frames. Frame with index {@code i} starts at offset {@code i * frameSize}.
+     *
+     * @param frames    native segment with frames
+     * @param frameSize size of single frame in bytes
+     * @param count     number of frames in the batch
+     */
+    void process(MemorySegment frames, int frameSize, int count);
+}
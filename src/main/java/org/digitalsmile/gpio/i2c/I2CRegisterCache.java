@@ -0,0 +1,198 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.IntegerToHex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.BitSet;
+
+/**
+ * Shadow cache of 8-bit registers of one device on the I2C bus. Known register values are kept in memory,
+ * so reads and read-modify-write updates of configuration registers do not need read transactions.
+ * Writes are always sent to device (write-through). Registers, which are changed by the device itself (status, data, etc.),
+ * must be marked as volatile, so they always bypass the cache.
+ * <p>
+ * Instance of cache can only be obtained from {@link I2CBus#getRegisterCache(int)}, there is only one cache per bus and device address.
+ * Device is accessed with its own address, so selected address of the bus is not changed with raw I2C.
+ */
+public final class I2CRegisterCache {
+    private static final Logger logger = LoggerFactory.getLogger(I2CRegisterCache.class);
+    private static final int REGISTERS = 256;
+
+    private final I2CBus bus;
+    private final String path;
+    private final int address;
+    private final int[] values = new int[REGISTERS];
+    private final BitSet cached = new BitSet(REGISTERS);
+    private final BitSet volatileRegisters = new BitSet(REGISTERS);
+
+    /**
+     * Creates cache of device registers.
+     *
+     * @param bus     I2C bus of device
+     * @param path    path of I2C bus device
+     * @param address device address on the bus
+     */
+    I2CRegisterCache(I2CBus bus, String path, int address) {
+        this.bus = bus;
+        this.path = path;
+        this.address = address;
+    }
+
+    /**
+     * Marks registers as volatile, they are never cached.
+     *
+     * @param registerAddresses register addresses of device
+     */
+    public synchronized void markVolatile(int... registerAddresses) {
+        for (int registerAddress : registerAddresses) {
+            checkRegister(registerAddress);
+            volatileRegisters.set(registerAddress);
+            cached.clear(registerAddress);
+        }
+    }
+
+    /**
+     * Reads the register value. Cached value is returned if known, otherwise value is read from device and cached.
+     *
+     * @param registerAddress register address of device
+     * @return register value
+     * @throws NativeMemoryException if there is issue while reading the register
+     */
+    public synchronized int read(int registerAddress) throws NativeMemoryException {
+        checkRegister(registerAddress);
+        if (cached.get(registerAddress)) {
+            return values[registerAddress];
+        }
+        var value = bus.execute(address, new I2CBatch().read(registerAddress, 1)).getFirst()[0] & 0xFF;
+        store(registerAddress, value);
+        return value;
+    }
+
+    /**
+     * Writes the register value into device and cache.
+     *
+     * @param registerAddress register address of device
+     * @param value           register value
+     * @throws NativeMemoryException if there is issue while writing the register
+     */
+    public synchronized void write(int registerAddress, int value) throws NativeMemoryException {
+        checkRegister(registerAddress);
+        bus.execute(address, new I2CBatch().write(registerAddress, value));
+        store(registerAddress, value & 0xFF);
+    }
+
+    /**
+     * Updates bits of the register with read-modify-write. If register value is cached no read is needed,
+     * if value is not changed by update nothing is written.
+     *
+     * @param registerAddress register address of device
+     * @param mask            bits to be updated
+     * @param value           new value of bits
+     * @return true if register value was changed and written
+     * @throws NativeMemoryException if there is issue while reading or writing the register
+     */
+    public synchronized boolean updateBits(int registerAddress, int mask, int value) throws NativeMemoryException {
+        var oldValue = read(registerAddress);
+        var newValue = (oldValue & ~mask) | (value & mask);
+        if (newValue == oldValue && !volatileRegisters.get(registerAddress)) {
+            return false;
+        }
+        write(registerAddress, newValue);
+        return true;
+    }
+
+    /**
+     * Writes all cached register values into device with one batch, e.g. to restore configuration after device reset.
+     *
+     * @throws NativeMemoryException if there is issue while writing the registers
+     */
+    public synchronized void sync() throws NativeMemoryException {
+        var batch = new I2CBatch();
+        for (int register = cached.nextSetBit(0); register >= 0; register = cached.nextSetBit(register + 1)) {
+            batch.write(register, values[register]);
+        }
+        logger.debug("{} - syncing {} cached registers of '{}'.", path, batch.size(), IntegerToHex.convert(address));
+        bus.execute(address, batch);
+    }
+
+    /**
+     * Reads all cached register values from device with one batch.
+     *
+     * @throws NativeMemoryException if there is issue while reading the registers
+     */
+    public synchronized void refresh() throws NativeMemoryException {
+        var batch = new I2CBatch();
+        for (int register = cached.nextSetBit(0); register >= 0; register = cached.nextSetBit(register + 1)) {
+            batch.read(register, 1);
+        }
+        logger.debug("{} - refreshing {} cached registers of '{}'.", path, batch.size(), IntegerToHex.convert(address));
+        var result = bus.execute(address, batch);
+        var index = 0;
+        for (int register = cached.nextSetBit(0); register >= 0; register = cached.nextSetBit(register + 1)) {
+            values[register] = result.get(index++)[0] & 0xFF;
+        }
+    }
+
+    /**
+     * Removes the register value from the cache.
+     *
+     * @param registerAddress register address of device
+     */
+    public synchronized void invalidate(int registerAddress) {
+        checkRegister(registerAddress);
+        cached.clear(registerAddress);
+    }
+
+    /**
+     * Removes all register values from the cache.
+     */
+    public synchronized void invalidate() {
+        cached.clear();
+    }
+
+    /**
+     * Gets the device address of this cache.
+     *
+     * @return device address on the bus
+     */
+    public int getAddress() {
+        return address;
+    }
+
+    /**
+     * Stores the register value if register is not volatile.
+     *
+     * @param registerAddress register address of device
+     * @param value           register value
+     */
+    private void store(int registerAddress, int value) {
+        if (volatileRegisters.get(registerAddress)) {
+            return;
+        }
+        values[registerAddress] = value;
+        cached.set(registerAddress);
+    }
+
+    /**
+     * Checks if register address fits into 8-bit register map.
+     *
+     * @param registerAddress register address of device
+     */
+    private void checkRegister(int registerAddress) {
+        if (registerAddress < 0 || registerAddress >= REGISTERS) {
+            throw new IllegalArgumentException("Register address must be from 0 to " + (REGISTERS - 1) + ".");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "I2CRegisterCache{" +
+                "path='" + path + '\'' +
+                ", address=" + IntegerToHex.convert(address) +
+                ", cached=" + cached.cardinality() +
+                ", volatile=" + volatileRegisters.cardinality() +
+                '}';
+    }
+}
@@ -0,0 +1,25 @@
+package org.digitalsmile.gpio.i2c;
+
+import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
+
+/**
+ * Read of the register of one device, used for snapshot of many devices on the bus with {@link I2CBus#readSnapshot(java.util.List, byte[])}.
+ *
+ * @param address         device address on the bus
+ * @param registerAddress register address of device
+ * @param length          the size of the data to read (up to 8191 bytes, split into 32 bytes blocks in SMBus mode)
+ */
+public record I2CRegisterRead(int address, int registerAddress, int length) {
+
+    /**
+     * Validates the read parameters.
+     */
+    public I2CRegisterRead {
+        if (address < 0 || address > I2CFlag.MAX_7BIT_DEVICES) {
+            throw new IllegalArgumentException("Device address must be from 0 to " + I2CFlag.MAX_7BIT_DEVICES + ".");
+        }
+        if (length <= 0 || length > I2CBatch.MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The size of read block data must be from 1 to " + I2CBatch.MAX_BLOCK_SIZE + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.ioctl.Command;
+import org.digitalsmile.gpio.core.ioctl.Ioctl;
+import org.digitalsmile.gpio.core.ioctl.IoctlNative;
+import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
+import org.digitalsmile.gpio.i2c.structs.I2CMessage;
+import org.digitalsmile.gpio.i2c.structs.I2CRdwrIoctlData;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Internal combined I2C transaction, executed with single I2C_RDWR ioctl call.
+ * Messages and their buffers are allocated in the confined arena, which is released on close.
+ */
+final class I2CTransaction implements AutoCloseable {
+    private static final Ioctl IOCTL = new IoctlNative();
+
+    private final Arena arena = Arena.ofConfined();
+    private final MemorySegment messages;
+    private final MemorySegment rdwrData;
+    private final int capacity;
+    private int count;
+
+    /**
+     * Creates transaction with given maximum number of messages.
+     *
+     * @param capacity maximum number of messages, must not exceed {@link I2CFlag#I2C_RDWR_IOCTL_MAX_MSGS}
+     */
+    I2CTransaction(int capacity) {
+        if (capacity <= 0 || capacity > I2CFlag.I2C_RDWR_IOCTL_MAX_MSGS) {
+            throw new IllegalArgumentException("Number of messages in transaction must be from 1 to " + I2CFlag.I2C_RDWR_IOCTL_MAX_MSGS + ".");
+        }
+        this.capacity = capacity;
+        this.messages = arena.allocate(I2CMessage.LAYOUT, capacity);
+        this.rdwrData = arena.allocate(I2CRdwrIoctlData.LAYOUT);
+    }
+
+    /**
+     * Adds write message of register address followed by data.
+     *
+     * @param address         device address
+     * @param flags           additional message flags (e.g. I2C_M_TEN)
+     * @param registerAddress register address
+     * @param data            data to be written
+     */
+    void write(int address, int flags, int registerAddress, byte[] data) {
+        var buffer = arena.allocate(data.length + 1L);
+        buffer.set(ValueLayout.JAVA_BYTE, 0, (byte) registerAddress);
+        MemorySegment.copy(data, 0, buffer, ValueLayout.JAVA_BYTE, 1, data.length);
+        add(address, flags, buffer);
+    }
+
+    /**
+     * Adds read message.
+     *
+     * @param address device address
+     * @param flags   additional message flags (e.g. I2C_M_TEN)
+     * @param size    number of bytes to read
+     * @return native buffer, filled with data after transaction is executed
+     */
+    MemorySegment read(int address, int flags, int size) {
+        var buffer = arena.allocate(size);
+        add(address, flags | I2CFlag.I2C_M_RD, buffer);
+        return buffer;
+    }
+
+    /**
+     * Adds message with given buffer.
+     *
+     * @param address device address
+     * @param flags   message flags
+     * @param buffer  native buffer of the message
+     */
+    void add(int address, int flags, MemorySegment buffer) {
+        if (count == capacity) {
+            throw new IllegalStateException("Transaction is full, maximum " + capacity + " messages allowed.");
+        }
+        new I2CMessage((short) address, (short) flags, (short) buffer.byteSize(), buffer)
+                .toBytes(messages.asSlice(count * I2CMessage.LAYOUT.byteSize(), I2CMessage.LAYOUT));
+        count++;
+    }
+
+    /**
+     * Gets the number of messages in transaction.
+     *
+     * @return number of messages
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Executes all messages with repeated start between them and clears the transaction for reuse.
+     * Buffers allocated by previous messages are valid until the transaction is closed.
+     *
+     * @param fd file descriptor of i2c device
+     * @throws NativeMemoryException if there is issue while executing transaction
+     */
+    void execute(int fd) throws NativeMemoryException {
+        if (count == 0) {
+            return;
+        }
+        new I2CRdwrIoctlData(messages, count).toBytes(rdwrData);
+        count = 0;
+        IOCTL.callByValue(fd, Command.getI2CRdwr(), rdwrData.address());
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,217 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.ioctl.Command;
+import org.digitalsmile.gpio.core.ioctl.Ioctl;
+import org.digitalsmile.gpio.core.ioctl.IoctlNative;
+import org.digitalsmile.gpio.core.ioctl.IoctlStatus;
+import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
+import org.digitalsmile.gpio.i2c.structs.I2CMessage;
+import org.digitalsmile.gpio.i2c.structs.I2CRdwrIoctlData;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Register access with raw I2C messages through I2C_RDWR ioctl. Register read is a combined transaction with repeated start.
+ * Messages and buffers are preallocated once, so access does not allocate native memory. Instance is not thread safe, it is used only under the bus lock of {@link I2CBus}.
+ * <p>
+ * Caller-supplied native segments are used as message buffers directly. Write from native segment sends the register address
+ * and data as two messages without repeated start if I2C_FUNC_NOSTART is supported, otherwise data is copied into the scratch buffer.
+ */
+final class RawI2CAccess implements I2CAccess {
+    private static final Ioctl IOCTL = new IoctlNative();
+    private static final long MESSAGE_SIZE = I2CMessage.LAYOUT.byteSize();
+
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment messages = arena.allocate(I2CMessage.LAYOUT, 2);
+    private final MemorySegment rdwrData = arena.allocate(I2CRdwrIoctlData.LAYOUT);
+    private final MemorySegment registerBuffer = arena.allocate(1);
+    private final MemorySegment dataBuffer = arena.allocate(I2CFlag.I2C_RDWR_MAX_MESSAGE_SIZE);
+    private final boolean noStart;
+
+    /**
+     * Creates raw I2C access.
+     *
+     * @param noStart true if I2C_FUNC_NOSTART is supported
+     */
+    RawI2CAccess(boolean noStart) {
+        this.noStart = noStart;
+    }
+
+    @Override
+    public void write(int fd, int address, int flags, int registerAddress, int data) throws NativeMemoryException {
+        dataBuffer.set(ValueLayout.JAVA_BYTE, 0, (byte) registerAddress);
+        dataBuffer.set(ValueLayout.JAVA_BYTE, 1, (byte) data);
+        transfer(fd, address, flags, dataBuffer.asSlice(0, 2));
+    }
+
+    @Override
+    public void write(int fd, int address, int flags, int registerAddress, byte[] data) throws NativeMemoryException {
+        dataBuffer.set(ValueLayout.JAVA_BYTE, 0, (byte) registerAddress);
+        MemorySegment.copy(data, 0, dataBuffer, ValueLayout.JAVA_BYTE, 1, data.length);
+        transfer(fd, address, flags, dataBuffer.asSlice(0, data.length + 1));
+    }
+
+    @Override
+    public int read(int fd, int address, int flags, int registerAddress) throws NativeMemoryException {
+        return readRegister(fd, address, flags, registerAddress, Integer.BYTES).get(ValueLayout.JAVA_INT_UNALIGNED, 0);
+    }
+
+    @Override
+    public byte[] read(int fd, int address, int flags, int registerAddress, int size) throws NativeMemoryException {
+        return readRegister(fd, address, flags, registerAddress, size).toArray(ValueLayout.JAVA_BYTE);
+    }
+
+    @Override
+    public void write(int fd, int address, int flags, int registerAddress, MemorySegment source) throws NativeMemoryException {
+        prepareWrite(address, flags, registerAddress, source);
+        IOCTL.callByValue(fd, Command.getI2CRdwr(), rdwrData.address());
+    }
+
+    @Override
+    public void read(int fd, int address, int flags, int registerAddress, MemorySegment destination) throws NativeMemoryException {
+        prepareRead(address, flags, registerAddress, destination);
+        IOCTL.callByValue(fd, Command.getI2CRdwr(), rdwrData.address());
+    }
+
+    @Override
+    public int tryWrite(int fd, int address, int flags, int registerAddress, MemorySegment source) {
+        prepareWrite(address, flags, registerAddress, source);
+        return IoctlStatus.call(fd, Command.getI2CRdwr(), rdwrData.address());
+    }
+
+    @Override
+    public int tryRead(int fd, int address, int flags, int registerAddress, MemorySegment destination) {
+        prepareRead(address, flags, registerAddress, destination);
+        return IoctlStatus.call(fd, Command.getI2CRdwr(), rdwrData.address());
+    }
+
+    /**
+     * Executes combined transaction of write message followed by read message with repeated start.
+     *
+     * @param fd      file descriptor of i2c device
+     * @param address device address
+     * @param flags   message flags
+     * @param write   native segment with data to be written, empty to skip write message
+     * @param read    native segment to be filled with data, empty to skip read message
+     * @throws NativeMemoryException if there is issue while executing transaction
+     */
+    void transfer(int fd, int address, int flags, MemorySegment write, MemorySegment read) throws NativeMemoryException {
+        prepareTransfer(address, flags, write, read);
+        IOCTL.callByValue(fd, Command.getI2CRdwr(), rdwrData.address());
+    }
+
+    /**
+     * Executes combined transaction of write message followed by read message without throwing exception.
+     *
+     * @param fd      file descriptor of i2c device
+     * @param address device address
+     * @param flags   message flags
+     * @param write   native segment with data to be written, empty to skip write message
+     * @param read    native segment to be filled with data, empty to skip read message
+     * @return zero or positive value if successful, otherwise negative errno
+     */
+    int tryTransfer(int fd, int address, int flags, MemorySegment write, MemorySegment read) {
+        prepareTransfer(address, flags, write, read);
+        return IoctlStatus.call(fd, Command.getI2CRdwr(), rdwrData.address());
+    }
+
+    /**
+     * Prepares write and read messages of combined transaction.
+     *
+     * @param address device address
+     * @param flags   message flags
+     * @param write   native segment with data to be written, empty to skip write message
+     * @param read    native segment to be filled with data, empty to skip read message
+     */
+    private void prepareTransfer(int address, int flags, MemorySegment write, MemorySegment read) {
+        var count = 0;
+        if (write.byteSize() > 0) {
+            new I2CMessage((short) address, (short) flags, (short) write.byteSize(), write).toBytes(messages);
+            count++;
+        }
+        if (read.byteSize() > 0) {
+            new I2CMessage((short) address, (short) (flags | I2CFlag.I2C_M_RD), (short) read.byteSize(), read)
+                    .toBytes(messages.asSlice(count * MESSAGE_SIZE));
+            count++;
+        }
+        new I2CRdwrIoctlData(messages, count).toBytes(rdwrData);
+    }
+
+    /**
+     * Prepares write of register address and data from native segment.
+     *
+     * @param address         device address
+     * @param flags           message flags
+     * @param registerAddress register address of device
+     * @param source          native segment with data to be written
+     */
+    private void prepareWrite(int address, int flags, int registerAddress, MemorySegment source) {
+        if (!noStart) {
+            dataBuffer.set(ValueLayout.JAVA_BYTE, 0, (byte) registerAddress);
+            MemorySegment.copy(source, 0, dataBuffer, 1, source.byteSize());
+            var buffer = dataBuffer.asSlice(0, source.byteSize() + 1);
+            new I2CMessage((short) address, (short) flags, (short) buffer.byteSize(), buffer).toBytes(messages);
+            new I2CRdwrIoctlData(messages, 1).toBytes(rdwrData);
+            return;
+        }
+        registerBuffer.set(ValueLayout.JAVA_BYTE, 0, (byte) registerAddress);
+        new I2CMessage((short) address, (short) flags, (short) 1, registerBuffer).toBytes(messages);
+        new I2CMessage((short) address, (short) (flags | I2CFlag.I2C_M_NOSTART), (short) source.byteSize(), source).toBytes(messages.asSlice(MESSAGE_SIZE));
+        new I2CRdwrIoctlData(messages, 2).toBytes(rdwrData);
+    }
+
+    /**
+     * Prepares register write and read messages with repeated start.
+     *
+     * @param address         device address
+     * @param flags           message flags
+     * @param registerAddress register address of device
+     * @param destination     native segment to be filled with data
+     */
+    private void prepareRead(int address, int flags, int registerAddress, MemorySegment destination) {
+        registerBuffer.set(ValueLayout.JAVA_BYTE, 0, (byte) registerAddress);
+        new I2CMessage((short) address, (short) flags, (short) 1, registerBuffer).toBytes(messages);
+        new I2CMessage((short) address, (short) (flags | I2CFlag.I2C_M_RD), (short) destination.byteSize(), destination).toBytes(messages.asSlice(MESSAGE_SIZE));
+        new I2CRdwrIoctlData(messages, 2).toBytes(rdwrData);
+    }
+
+    /**
+     * Executes single write message.
+     *
+     * @param fd      file descriptor of i2c device
+     * @param address device address
+     * @param flags   message flags
+     * @param buffer  data to be written
+     * @throws NativeMemoryException if there is issue while writing the data
+     */
+    private void transfer(int fd, int address, int flags, MemorySegment buffer) throws NativeMemoryException {
+        new I2CMessage((short) address, (short) flags, (short) buffer.byteSize(), buffer).toBytes(messages);
+        new I2CRdwrIoctlData(messages, 1).toBytes(rdwrData);
+        IOCTL.callByValue(fd, Command.getI2CRdwr(), rdwrData.address());
+    }
+
+    /**
+     * Executes register write and read messages with repeated start.
+     *
+     * @param fd              file descriptor of i2c device
+     * @param address         device address
+     * @param flags           message flags
+     * @param registerAddress register address of device
+     * @param size            the size of the data to read
+     * @return native buffer with data read, valid until next access
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    private MemorySegment readRegister(int fd, int address, int flags, int registerAddress, int size) throws NativeMemoryException {
+        var data = dataBuffer.asSlice(0, size);
+        read(fd, address, flags, registerAddress, data);
+        return data;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
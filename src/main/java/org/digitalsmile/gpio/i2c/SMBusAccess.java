@@ -0,0 +1,159 @@
+package org.digitalsmile.gpio.i2c;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.Errno;
+import org.digitalsmile.gpio.core.ioctl.Command;
+import org.digitalsmile.gpio.core.ioctl.Ioctl;
+import org.digitalsmile.gpio.core.ioctl.IoctlNative;
+import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
+import org.digitalsmile.gpio.i2c.structs.SMBusData;
+import org.digitalsmile.gpio.i2c.structs.SMBusIoctlData;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Register access through SMBus ioctl for adapters without raw I2C support. The device address is taken from the file descriptor.
+ * SMBus data is always copied through the ioctl structure, so native segments are copied as well.
+ * Blocks larger than 32 bytes are split into several SMBus transfers with incremented register address,
+ * which requires register auto increment of the device.
+ */
+final class SMBusAccess implements I2CAccess {
+    private static final Ioctl IOCTL = new IoctlNative();
+
+    private final boolean writeBlock;
+    private final boolean readWord;
+    private final boolean readBlock;
+    private final SMBusTransfer transfer = new SMBusTransfer();
+
+    /**
+     * Creates SMBus access with supported commands.
+     *
+     * @param writeBlock true if I2C_FUNC_SMBUS_WRITE_I2C_BLOCK is supported
+     * @param readWord   true if I2C_FUNC_SMBUS_READ_WORD_DATA is supported
+     * @param readBlock  true if I2C_FUNC_SMBUS_READ_I2C_BLOCK is supported
+     */
+    SMBusAccess(boolean writeBlock, boolean readWord, boolean readBlock) {
+        this.writeBlock = writeBlock;
+        this.readWord = readWord;
+        this.readBlock = readBlock;
+    }
+
+    @Override
+    public void write(int fd, int address, int flags, int registerAddress, int data) throws NativeMemoryException {
+        if (!writeBlock) {
+            throw new NativeMemoryException("No available write method is supported!");
+        }
+        var smbusData = new SMBusIoctlData(I2CFlag.I2C_SMBUS_WRITE, (byte) registerAddress, I2CFlag.I2C_SMBUS_WORD_DATA,
+                new SMBusData((byte) data, (short) 0, new byte[]{}));
+        IOCTL.call(fd, Command.getI2CSMBus(), smbusData);
+    }
+
+    @Override
+    public void write(int fd, int address, int flags, int registerAddress, byte[] data) throws NativeMemoryException {
+        if (!writeBlock) {
+            throw new NativeMemoryException("No available write method is supported!");
+        }
+        for (int offset = 0; offset < data.length; offset += I2CFlag.I2C_SMBUS_BLOCK_MAX) {
+            var length = Math.min(I2CFlag.I2C_SMBUS_BLOCK_MAX, data.length - offset);
+            var buffer = new byte[length + 1];
+            buffer[0] = (byte) length;
+            System.arraycopy(data, offset, buffer, 1, length);
+            var smbusData = new SMBusIoctlData(I2CFlag.I2C_SMBUS_WRITE, (byte) (registerAddress + offset), I2CFlag.I2C_SMBUS_I2C_BLOCK_DATA,
+                    new SMBusData((byte) 0, (short) 0, buffer));
+            IOCTL.call(fd, Command.getI2CSMBus(), smbusData);
+        }
+    }
+
+    @Override
+    public void write(int fd, int address, int flags, int registerAddress, MemorySegment source) throws NativeMemoryException {
+        write(fd, address, flags, registerAddress, source.toArray(ValueLayout.JAVA_BYTE));
+    }
+
+    @Override
+    public int read(int fd, int address, int flags, int registerAddress) throws NativeMemoryException {
+        if (!readWord) {
+            throw new NativeMemoryException("No available read method is supported!");
+        }
+        var smbusData = new SMBusIoctlData(I2CFlag.I2C_SMBUS_READ, (byte) registerAddress, I2CFlag.I2C_SMBUS_WORD_DATA,
+                SMBusData.createEmpty());
+        var result = IOCTL.call(fd, Command.getI2CSMBus(), smbusData);
+        return result.data()._byte();
+    }
+
+    @Override
+    public byte[] read(int fd, int address, int flags, int registerAddress, int size) throws NativeMemoryException {
+        if (!readBlock) {
+            throw new NativeMemoryException("No available read method is supported!");
+        }
+        if (size <= I2CFlag.I2C_SMBUS_BLOCK_MAX) {
+            return readBlock(fd, registerAddress, size);
+        }
+        var result = new byte[size];
+        for (int offset = 0; offset < size; offset += I2CFlag.I2C_SMBUS_BLOCK_MAX) {
+            var length = Math.min(I2CFlag.I2C_SMBUS_BLOCK_MAX, size - offset);
+            var block = readBlock(fd, registerAddress + offset, length);
+            System.arraycopy(block, 0, result, offset, Math.min(length, block.length));
+        }
+        return result;
+    }
+
+    /**
+     * Reads single SMBus block of up to 32 bytes.
+     *
+     * @param fd              file descriptor bound to the device address
+     * @param registerAddress register address of device
+     * @param size            the size of the data to read
+     * @return data array read from register
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    private byte[] readBlock(int fd, int registerAddress, int size) throws NativeMemoryException {
+        var buffer = new byte[size + 1];
+        buffer[0] = (byte) size;
+        var smbusData = new SMBusIoctlData(I2CFlag.I2C_SMBUS_READ, (byte) registerAddress, I2CFlag.I2C_SMBUS_I2C_BLOCK_DATA,
+                new SMBusData((byte) 0, (short) 0, buffer));
+        var result = IOCTL.call(fd, Command.getI2CSMBus(), smbusData);
+        return result.data().block();
+    }
+
+    @Override
+    public void read(int fd, int address, int flags, int registerAddress, MemorySegment destination) throws NativeMemoryException {
+        var data = read(fd, address, flags, registerAddress, (int) destination.byteSize());
+        MemorySegment.copy(data, 0, destination, ValueLayout.JAVA_BYTE, 0, (int) Math.min(data.length, destination.byteSize()));
+    }
+
+    @Override
+    public int tryWrite(int fd, int address, int flags, int registerAddress, MemorySegment source) {
+        if (!writeBlock) {
+            return -Errno.EOPNOTSUPP;
+        }
+        for (long offset = 0; offset < source.byteSize(); offset += I2CFlag.I2C_SMBUS_BLOCK_MAX) {
+            var length = (int) Math.min(I2CFlag.I2C_SMBUS_BLOCK_MAX, source.byteSize() - offset);
+            var status = transfer.writeBlock(fd, registerAddress + (int) offset, source, offset, length);
+            if (status < 0) {
+                return status;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int tryRead(int fd, int address, int flags, int registerAddress, MemorySegment destination) {
+        if (!readBlock) {
+            return -Errno.EOPNOTSUPP;
+        }
+        for (long offset = 0; offset < destination.byteSize(); offset += I2CFlag.I2C_SMBUS_BLOCK_MAX) {
+            var length = (int) Math.min(I2CFlag.I2C_SMBUS_BLOCK_MAX, destination.byteSize() - offset);
+            var status = transfer.readBlock(fd, registerAddress + (int) offset, destination, offset, length);
+            if (status < 0) {
+                return status;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        transfer.close();
+    }
+}
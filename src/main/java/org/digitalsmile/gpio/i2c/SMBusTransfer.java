@@ -0,0 +1,86 @@
+package org.digitalsmile.gpio.i2c;
+
+import org.digitalsmile.gpio.core.ioctl.Command;
+import org.digitalsmile.gpio.core.ioctl.IoctlStatus;
+import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
+import org.digitalsmile.gpio.i2c.structs.SMBusIoctlData;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Internal exception-free SMBus transfer with preallocated ioctl structure and data block.
+ * Instance is not thread safe.
+ */
+final class SMBusTransfer implements AutoCloseable {
+    private static final VarHandle VH_READ_WRITE = SMBusIoctlData.LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("read_write"));
+    private static final VarHandle VH_COMMAND = SMBusIoctlData.LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("command"));
+    private static final VarHandle VH_SIZE = SMBusIoctlData.LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("size"));
+    private static final VarHandle VH_DATA = SMBusIoctlData.LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("data"));
+
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment ioctlData = arena.allocate(SMBusIoctlData.LAYOUT);
+    // i2c_smbus_data union, block[0] is the length of block
+    private final MemorySegment data = arena.allocate(I2CFlag.I2C_SMBUS_BLOCK_MAX + 2);
+
+    /**
+     * Calls SMBus ioctl.
+     *
+     * @param fd        file descriptor bound to the device address
+     * @param readWrite read or write byte
+     * @param command   command (register address)
+     * @param size      size of transfer (e.g. I2C_SMBUS_QUICK)
+     * @param withData  false if transfer has no data (quick command)
+     * @return zero if successful, otherwise negative errno
+     */
+    int call(int fd, byte readWrite, int command, int size, boolean withData) {
+        VH_READ_WRITE.set(ioctlData, 0L, readWrite);
+        VH_COMMAND.set(ioctlData, 0L, (byte) command);
+        VH_SIZE.set(ioctlData, 0L, size);
+        VH_DATA.set(ioctlData, 0L, withData ? data : MemorySegment.NULL);
+        return IoctlStatus.call(fd, Command.getI2CSMBus(), ioctlData.address());
+    }
+
+    /**
+     * Reads I2C block of up to 32 bytes into destination.
+     *
+     * @param fd          file descriptor bound to the device address
+     * @param command     command (register address)
+     * @param destination destination segment
+     * @param offset      offset in destination segment
+     * @param length      length of block
+     * @return zero if successful, otherwise negative errno
+     */
+    int readBlock(int fd, int command, MemorySegment destination, long offset, int length) {
+        data.set(ValueLayout.JAVA_BYTE, 0, (byte) length);
+        var status = call(fd, I2CFlag.I2C_SMBUS_READ, command, I2CFlag.I2C_SMBUS_I2C_BLOCK_DATA, true);
+        if (status >= 0) {
+            MemorySegment.copy(data, 1, destination, offset, length);
+        }
+        return status;
+    }
+
+    /**
+     * Writes I2C block of up to 32 bytes from source.
+     *
+     * @param fd      file descriptor bound to the device address
+     * @param command command (register address)
+     * @param source  source segment
+     * @param offset  offset in source segment
+     * @param length  length of block
+     * @return zero if successful, otherwise negative errno
+     */
+    int writeBlock(int fd, int command, MemorySegment source, long offset, int length) {
+        data.set(ValueLayout.JAVA_BYTE, 0, (byte) length);
+        MemorySegment.copy(source, offset, data, 1, length);
+        return call(fd, I2CFlag.I2C_SMBUS_WRITE, command, I2CFlag.I2C_SMBUS_I2C_BLOCK_DATA, true);
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
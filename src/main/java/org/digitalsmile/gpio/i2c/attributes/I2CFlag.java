@@ -15,6 +15,14 @@ public class I2CFlag {
      * Maximum devices with 7 bit addressing map
      */
     public static final int MAX_7BIT_DEVICES = 127;
+    /**
+     * First not reserved address with 7 bit addressing map
+     */
+    public static final int FIRST_7BIT_ADDRESS = 0x08;
+    /**
+     * Last not reserved address with 7 bit addressing map
+     */
+    public static final int LAST_7BIT_ADDRESS = 0x77;
     /**
      * Device is busy
      */
@@ -32,6 +40,18 @@ public class I2CFlag {
      * Read byte of SMBus
      */
     public static final byte I2C_SMBUS_READ = 1;
+    /**
+     * Send quick command (read/write bit only)
+     */
+    public static final byte I2C_SMBUS_QUICK = 0;
+    /**
+     * Send BYTE without command
+     */
+    public static final byte I2C_SMBUS_BYTE = 1;
+    /**
+     * Send BYTE data
+     */
+    public static final byte I2C_SMBUS_BYTE_DATA = 2;
     /**
      * Send WORD data
      */
@@ -41,4 +61,25 @@ public class I2CFlag {
      */
     public static final byte I2C_SMBUS_I2C_BLOCK_DATA = 8;
 
+    /**
+     * Maximum number of messages in one I2C_RDWR transaction
+     */
+    public static final int I2C_RDWR_IOCTL_MAX_MSGS = 42;
+    /**
+     * Maximum length of single message in I2C_RDWR transaction
+     */
+    public static final int I2C_RDWR_MAX_MESSAGE_SIZE = 8192;
+    /**
+     * Message reads data from device to master
+     */
+    public static final int I2C_M_RD = 0x0001;
+    /**
+     * Message uses 10 bit device address
+     */
+    public static final int I2C_M_TEN = 0x0010;
+    /**
+     * Message is sent without start condition (requires I2C_FUNC_NOSTART)
+     */
+    public static final int I2C_M_NOSTART = 0x4000;
+
 }
@@ -0,0 +1,316 @@
+package org.digitalsmile.gpio.i2c.device;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.IntegerToHex;
+import org.digitalsmile.gpio.i2c.I2CBus;
+import org.digitalsmile.gpio.i2c.attributes.I2CFlag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class for reading and writing AT24-class I2C EEPROM devices.
+ * <p>
+ * Writes are split at page boundaries, each page is sent as one message prefixed with memory address.
+ * Instead of fixed sleeps the end of internal write cycle is detected by polling the device for an ACK:
+ * while the device is busy it does not acknowledge its address.
+ * Reads are sequential and stream the memory in transfers as large as the adapter allows.
+ * <p>
+ * Devices with one byte memory address and more than 256 bytes (24C04 - 24C16) use the lower bits of device address as upper memory address bits.
+ * Raw I2C support of the bus is required.
+ */
+public final class I2CEeprom implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(I2CEeprom.class);
+    // AT24 write cycle is 5ms max, leave enough room for slower parts
+    private static final Duration DEFAULT_WRITE_CYCLE_TIMEOUT = Duration.ofMillis(20);
+    // pause between ACK polls, small fraction of typical 5ms write cycle, so the bus stays free for other devices
+    private static final long ACK_POLL_INTERVAL_NS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int MAX_READ_SIZE = I2CFlag.I2C_RDWR_MAX_MESSAGE_SIZE - 1;
+
+    private final I2CBus bus;
+    private final int address;
+    private final int size;
+    private final int pageSize;
+    private final int addressBytes;
+    private final long writeCycleTimeout;
+
+    private final Arena arena;
+    private final MemorySegment addressBuffer;
+    private final MemorySegment pageBuffer;
+
+    private long ackPolls;
+
+    /**
+     * Creates EEPROM object.
+     *
+     * @param bus          I2C bus with raw I2C support
+     * @param address      device address on the bus
+     * @param size         size of memory in bytes
+     * @param pageSize     size of write page in bytes
+     * @param addressBytes number of memory address bytes (1 or 2)
+     */
+    public I2CEeprom(I2CBus bus, int address, int size, int pageSize, int addressBytes) {
+        this(bus, address, size, pageSize, addressBytes, DEFAULT_WRITE_CYCLE_TIMEOUT);
+    }
+
+    /**
+     * Creates EEPROM object.
+     *
+     * @param bus               I2C bus with raw I2C support
+     * @param address           device address on the bus
+     * @param size              size of memory in bytes
+     * @param pageSize          size of write page in bytes
+     * @param addressBytes      number of memory address bytes (1 or 2)
+     * @param writeCycleTimeout maximum time to wait for the end of write cycle
+     */
+    public I2CEeprom(I2CBus bus, int address, int size, int pageSize, int addressBytes, Duration writeCycleTimeout) {
+        if (!bus.isRawI2C()) {
+            throw new RuntimeException("EEPROM access requires raw I2C support of the bus.");
+        }
+        if (addressBytes != 1 && addressBytes != 2) {
+            throw new IllegalArgumentException("Number of memory address bytes must be 1 or 2.");
+        }
+        if (size <= 0 || size > (addressBytes == 1 ? 2048 : 65536)) {
+            throw new IllegalArgumentException("Size of memory " + size + " is not supported with " + addressBytes + " address byte(s).");
+        }
+        if (pageSize <= 0 || pageSize > size || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size must be power of two and not more than size of memory.");
+        }
+        if (addressBytes == 1 && (address & ((size - 1) >> 8)) != 0) {
+            throw new IllegalArgumentException("Device address " + IntegerToHex.convert(address) + " overlaps memory address bits.");
+        }
+        this.bus = bus;
+        this.address = address;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.addressBytes = addressBytes;
+        this.writeCycleTimeout = writeCycleTimeout.toNanos();
+
+        this.arena = Arena.ofShared();
+        this.addressBuffer = arena.allocate(addressBytes);
+        this.pageBuffer = arena.allocate(addressBytes + pageSize);
+    }
+
+    /**
+     * Creates EEPROM object of 24C02 device (256 bytes, 8 bytes page).
+     *
+     * @param bus     I2C bus with raw I2C support
+     * @param address device address on the bus
+     * @return EEPROM object
+     */
+    public static I2CEeprom of24C02(I2CBus bus, int address) {
+        return new I2CEeprom(bus, address, 256, 8, 1);
+    }
+
+    /**
+     * Creates EEPROM object of 24C32 device (4 KB, 32 bytes page).
+     *
+     * @param bus     I2C bus with raw I2C support
+     * @param address device address on the bus
+     * @return EEPROM object
+     */
+    public static I2CEeprom of24C32(I2CBus bus, int address) {
+        return new I2CEeprom(bus, address, 4096, 32, 2);
+    }
+
+    /**
+     * Creates EEPROM object of 24C256 device (32 KB, 64 bytes page).
+     *
+     * @param bus     I2C bus with raw I2C support
+     * @param address device address on the bus
+     * @return EEPROM object
+     */
+    public static I2CEeprom of24C256(I2CBus bus, int address) {
+        return new I2CEeprom(bus, address, 32768, 64, 2);
+    }
+
+    /**
+     * Writes the data starting from given memory address.
+     * Data is split at page boundaries, after each page the method waits for the end of write cycle by ACK polling.
+     *
+     * @param memoryAddress memory address to start from
+     * @param data          data to be written
+     * @throws NativeMemoryException if there is issue while writing the data or write cycle is timed out
+     */
+    public synchronized void write(int memoryAddress, byte[] data) throws NativeMemoryException {
+        checkRange(memoryAddress, data.length);
+        logger.debug("Writing {} bytes to EEPROM {} from address {}.", data.length, IntegerToHex.convert(address), IntegerToHex.convert(memoryAddress));
+        var offset = 0;
+        while (offset < data.length) {
+            var current = memoryAddress + offset;
+            var length = Math.min(data.length - offset, pageSize - (current & (pageSize - 1)));
+            putAddress(pageBuffer, current);
+            MemorySegment.copy(data, offset, pageBuffer, ValueLayout.JAVA_BYTE, addressBytes, length);
+            var deviceAddress = deviceAddress(current);
+            bus.transfer(deviceAddress, pageBuffer.asSlice(0, addressBytes + length), MemorySegment.NULL);
+            waitWriteCycle(deviceAddress, current);
+            offset += length;
+        }
+    }
+
+    /**
+     * Reads the data starting from given memory address.
+     *
+     * @param memoryAddress memory address to start from
+     * @param length        number of bytes to read
+     * @return read data
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    public byte[] read(int memoryAddress, int length) throws NativeMemoryException {
+        var data = new byte[length];
+        read(memoryAddress, data);
+        return data;
+    }
+
+    /**
+     * Reads the data starting from given memory address into the buffer.
+     *
+     * @param memoryAddress memory address to start from
+     * @param buffer        buffer to be filled with data
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    public void read(int memoryAddress, byte[] buffer) throws NativeMemoryException {
+        checkRange(memoryAddress, buffer.length);
+        try (var arena = Arena.ofConfined()) {
+            var segment = arena.allocate(buffer.length);
+            read(memoryAddress, segment);
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, 0, buffer, 0, buffer.length);
+        }
+    }
+
+    /**
+     * Reads the data starting from given memory address into native segment.
+     * Memory is streamed with sequential reads, each transfer is as large as the adapter allows.
+     *
+     * @param memoryAddress memory address to start from
+     * @param destination   native segment to be filled with data
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    public synchronized void read(int memoryAddress, MemorySegment destination) throws NativeMemoryException {
+        checkRange(memoryAddress, destination.byteSize());
+        var length = (int) destination.byteSize();
+        var offset = 0;
+        while (offset < length) {
+            var current = memoryAddress + offset;
+            var chunk = Math.min(length - offset, MAX_READ_SIZE);
+            if (addressBytes == 1) {
+                // one address byte devices switch device address each 256 bytes
+                chunk = Math.min(chunk, 256 - (current & 0xFF));
+            }
+            putAddress(addressBuffer, current);
+            bus.transfer(deviceAddress(current), addressBuffer, destination.asSlice(offset, chunk));
+            offset += chunk;
+        }
+    }
+
+    /**
+     * Reads the whole memory of the device.
+     *
+     * @return content of the memory
+     * @throws NativeMemoryException if there is issue while reading the data
+     */
+    public byte[] readAll() throws NativeMemoryException {
+        return read(0, size);
+    }
+
+    /**
+     * Gets the size of memory.
+     *
+     * @return size of memory in bytes
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the size of write page.
+     *
+     * @return size of page in bytes
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Gets the number of ACK polls done while waiting for write cycles.
+     *
+     * @return number of polls
+     */
+    public synchronized long getAckPolls() {
+        return ackPolls;
+    }
+
+    /**
+     * Waits for the end of write cycle by polling the device with memory address write until it is acknowledged.
+     * The write of memory address only sets the address pointer, so it is safe to repeat.
+     * Thread is parked between polls to leave the bus to other devices.
+     *
+     * @param deviceAddress device address to poll
+     * @param memoryAddress memory address of written page
+     * @throws NativeMemoryException if the device is not acknowledged in time
+     */
+    private void waitWriteCycle(int deviceAddress, int memoryAddress) throws NativeMemoryException {
+        putAddress(addressBuffer, memoryAddress);
+        var deadline = System.nanoTime() + writeCycleTimeout;
+        while (true) {
+            ackPolls++;
+            if (bus.tryTransfer(deviceAddress, addressBuffer, MemorySegment.NULL) >= 0) {
+                return;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new NativeMemoryException("EEPROM " + IntegerToHex.convert(deviceAddress) + " has not finished write cycle of page "
+                        + IntegerToHex.convert(memoryAddress) + " in " + Duration.ofNanos(writeCycleTimeout).toMillis() + "ms.");
+            }
+            LockSupport.parkNanos(ACK_POLL_INTERVAL_NS);
+        }
+    }
+
+    /**
+     * Puts the memory address to the beginning of segment.
+     *
+     * @param segment       segment to put the address to
+     * @param memoryAddress memory address
+     */
+    private void putAddress(MemorySegment segment, int memoryAddress) {
+        if (addressBytes == 2) {
+            segment.set(ValueLayout.JAVA_BYTE, 0, (byte) (memoryAddress >> 8));
+            segment.set(ValueLayout.JAVA_BYTE, 1, (byte) memoryAddress);
+        } else {
+            segment.set(ValueLayout.JAVA_BYTE, 0, (byte) memoryAddress);
+        }
+    }
+
+    /**
+     * Gets the device address for given memory address.
+     *
+     * @param memoryAddress memory address
+     * @return device address, with upper memory address bits for one address byte devices
+     */
+    private int deviceAddress(int memoryAddress) {
+        return addressBytes == 1 ? address | (memoryAddress >> 8) : address;
+    }
+
+    /**
+     * Checks if the range is inside the memory.
+     *
+     * @param memoryAddress memory address to start from
+     * @param length        length of range
+     */
+    private void checkRange(int memoryAddress, long length) {
+        if (memoryAddress < 0 || length < 0 || memoryAddress + length > size) {
+            throw new IllegalArgumentException("Range " + IntegerToHex.convert(memoryAddress) + " + " + length
+                    + " is out of memory size " + size + ".");
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        arena.close();
+    }
+}
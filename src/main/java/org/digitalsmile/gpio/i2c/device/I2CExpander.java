@@ -0,0 +1,345 @@
+package org.digitalsmile.gpio.i2c.device;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.IntegerToHex;
+import org.digitalsmile.gpio.i2c.I2CBus;
+import org.digitalsmile.gpio.pin.Pin;
+import org.digitalsmile.gpio.pin.attributes.PinDirection;
+import org.digitalsmile.gpio.pin.attributes.PinEvent;
+import org.digitalsmile.gpio.pin.event.EventSinkSubscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class of 16-bit I2C GPIO expanders, which presents expander lines as virtual pins (see {@link I2CExpanderPin}).
+ * <p>
+ * Output states are cached in the latch, every write sends the whole port in one transaction and is skipped if the latch is not changed.
+ * With deferred writes enabled, changes of many pins are combined and sent by {@link #flush()}.
+ * <p>
+ * When the INT line of expander is wired to a real GPIO Pin (see {@link #attachInterrupt(Pin, PinEvent)}), inputs are read only
+ * on the edge of that pin and changed lines are delivered to subscriptions of virtual pins as {@link org.digitalsmile.gpio.pin.event.DetectedEvent}.
+ */
+public abstract sealed class I2CExpander implements AutoCloseable permits MCP23017, PCF8575 {
+    private static final Logger logger = LoggerFactory.getLogger(I2CExpander.class);
+
+    /**
+     * Number of lines of expander.
+     */
+    public static final int PINS = 16;
+    private static final int ALL_PINS = (1 << PINS) - 1;
+    // INT line stays asserted until inputs are read, so failed read on interrupt is retried
+    private static final int INTERRUPT_READ_ATTEMPTS = 3;
+
+    final I2CBus bus;
+    final int address;
+    private final I2CExpanderPin[] pins = new I2CExpanderPin[PINS];
+
+    // lines configured as input are set in the mask
+    private int inputMask = ALL_PINS;
+    private int outputLatch;
+    private int inputState;
+    // set when inputs could not be read on interrupt, so the next read clears the pending interrupt
+    private boolean inputStale;
+    private boolean deferredWrites;
+    private boolean outputDirty;
+
+    private Pin interruptPin;
+    private EventSinkSubscription interruptSubscription;
+    private volatile long interrupts;
+
+    /**
+     * Creates expander object.
+     *
+     * @param bus     I2C bus
+     * @param address device address on the bus
+     */
+    I2CExpander(I2CBus bus, int address) {
+        this.bus = bus;
+        this.address = address;
+    }
+
+    /**
+     * Gets the virtual pin of expander line and configures its direction.
+     *
+     * @param pinNumber    line number (0 - 15)
+     * @param pinDirection direction of the line
+     * @return virtual pin
+     * @throws NativeMemoryException if there is issue while configuring the direction
+     */
+    public synchronized I2CExpanderPin getPin(int pinNumber, PinDirection pinDirection) throws NativeMemoryException {
+        checkPinNumber(pinNumber);
+        var pin = pins[pinNumber];
+        if (pin == null) {
+            pin = new I2CExpanderPin(this, pinNumber);
+            pins[pinNumber] = pin;
+        }
+        setDirection(pinNumber, pinDirection);
+        return pin;
+    }
+
+    /**
+     * Writes the output states of many lines at once. Lines not in the mask keep their states.
+     *
+     * @param mask   bit mask of lines to be changed
+     * @param values bit mask of new states (1 is HIGH)
+     * @throws NativeMemoryException if there is issue while writing to the expander
+     */
+    public synchronized void write(int mask, int values) throws NativeMemoryException {
+        var latch = (outputLatch & ~mask) | (values & mask & ALL_PINS);
+        if (latch == outputLatch) {
+            return;
+        }
+        this.outputLatch = latch;
+        this.outputDirty = true;
+        if (!deferredWrites) {
+            flush();
+        }
+    }
+
+    /**
+     * Reads the states of all lines. If interrupt is attached, the states read on the last edge are returned,
+     * unless that read failed: then inputs are read again, which also clears the pending interrupt of expander.
+     *
+     * @return bit mask of line states (1 is HIGH)
+     * @throws NativeMemoryException if there is issue while reading from the expander
+     */
+    public synchronized int read() throws NativeMemoryException {
+        if (interruptSubscription == null || inputStale) {
+            this.inputState = readInputs();
+            this.inputStale = false;
+        }
+        return inputState;
+    }
+
+    /**
+     * Sets deferred writes mode. In this mode output changes are cached until {@link #flush()} is called.
+     *
+     * @param deferredWrites true to defer writes
+     * @throws NativeMemoryException if there is issue while writing cached changes, when deferred mode is disabled
+     */
+    public synchronized void setDeferredWrites(boolean deferredWrites) throws NativeMemoryException {
+        this.deferredWrites = deferredWrites;
+        if (!deferredWrites) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes cached output changes of all lines in one transaction.
+     *
+     * @throws NativeMemoryException if there is issue while writing to the expander
+     */
+    public synchronized void flush() throws NativeMemoryException {
+        if (!outputDirty) {
+            return;
+        }
+        writeOutputs(outputLatch, inputMask);
+        this.outputDirty = false;
+    }
+
+    /**
+     * Attaches INT line of expander. Inputs are read on every edge of the pin and changed lines are delivered to subscriptions of virtual pins.
+     *
+     * @param pin      input pin connected to the INT line of expander
+     * @param pinEvent the edge of pin, which signals the change (usually falling, since INT line is active low)
+     * @throws NativeMemoryException if there is issue while configuring interrupts or reading initial states
+     */
+    public synchronized void attachInterrupt(Pin pin, PinEvent pinEvent) throws NativeMemoryException {
+        if (interruptSubscription != null) {
+            throw new RuntimeException("Interrupt is already attached to pin " + interruptPin.getName() + ".");
+        }
+        logger.debug("Attaching interrupt of expander {} to pin {}.", IntegerToHex.convert(address), pin.getName());
+        enableInterrupts(inputMask);
+        // initial read sets the baseline and clears pending interrupt
+        this.inputState = readInputs();
+        this.inputStale = false;
+        this.interruptPin = pin;
+        this.interruptSubscription = pin.subscribe(pinEvent, this::onInterrupt);
+    }
+
+    /**
+     * Detaches INT line of expander, inputs are read on every call again.
+     */
+    public synchronized void detachInterrupt() {
+        if (interruptSubscription == null) {
+            return;
+        }
+        interruptPin.unsubscribe(interruptSubscription);
+        this.interruptSubscription = null;
+        this.interruptPin = null;
+    }
+
+    /**
+     * Gets the number of handled interrupts.
+     *
+     * @return number of interrupts
+     */
+    public long getInterrupts() {
+        return interrupts;
+    }
+
+    /**
+     * Gets the device address.
+     *
+     * @return device address
+     */
+    public int getAddress() {
+        return address;
+    }
+
+    /**
+     * Detaches the interrupt.
+     */
+    @Override
+    public void close() {
+        detachInterrupt();
+    }
+
+    /**
+     * Sets the direction of the line.
+     *
+     * @param pinNumber    line number
+     * @param pinDirection direction of the line
+     * @throws NativeMemoryException if there is issue while configuring the direction
+     */
+    synchronized void setDirection(int pinNumber, PinDirection pinDirection) throws NativeMemoryException {
+        var bit = 1 << pinNumber;
+        var mask = pinDirection == PinDirection.INPUT ? inputMask | bit : inputMask & ~bit;
+        if (mask == inputMask && pins[pinNumber].getDirection() == pinDirection) {
+            return;
+        }
+        writeDirections(mask, outputLatch);
+        this.inputMask = mask;
+        this.outputDirty = false;
+        pins[pinNumber].direction(pinDirection);
+        if (interruptSubscription != null) {
+            enableInterrupts(mask);
+        }
+    }
+
+    /**
+     * Gets the output state of the line from the latch.
+     *
+     * @param pinNumber line number
+     * @return true if line is HIGH
+     */
+    synchronized boolean getOutput(int pinNumber) {
+        return (outputLatch & (1 << pinNumber)) != 0;
+    }
+
+    /**
+     * Handles the edge of INT line: reads inputs once and delivers changes.
+     * Failed read is retried, since expander keeps INT line asserted until inputs are read and no more edges come.
+     * If all attempts fail, inputs are marked stale and read again on the next {@link #read()}.
+     *
+     * @param timestamps      timestamps of edges
+     * @param events          event types
+     * @param sequenceNumbers sequence numbers of edges
+     * @param count           number of edges
+     */
+    private void onInterrupt(long[] timestamps, int[] events, int[] sequenceNumbers, int count) {
+        var timestamp = timestamps[count - 1];
+        int changed;
+        int state;
+        I2CExpanderPin[] snapshot;
+        synchronized (this) {
+            try {
+                state = readInputsOnInterrupt();
+            } catch (NativeMemoryException e) {
+                this.inputStale = true;
+                logger.error("Error while reading inputs of expander {} on interrupt, inputs will be read on next read() call.",
+                        IntegerToHex.convert(address), e);
+                return;
+            }
+            this.inputStale = false;
+            interrupts++;
+            changed = (state ^ inputState) & inputMask;
+            this.inputState = state;
+            snapshot = pins.clone();
+        }
+        while (changed != 0) {
+            var pinNumber = Integer.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            var pin = snapshot[pinNumber];
+            if (pin != null) {
+                pin.deliver(timestamp, (state & (1 << pinNumber)) != 0);
+            }
+        }
+    }
+
+    /**
+     * Reads inputs on interrupt with retries.
+     *
+     * @return bit mask of line states
+     * @throws NativeMemoryException if all attempts failed
+     */
+    private int readInputsOnInterrupt() throws NativeMemoryException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return readInputs();
+            } catch (NativeMemoryException e) {
+                if (attempt >= INTERRUPT_READ_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Error while reading inputs of expander {} on interrupt (attempt {} of {}), retrying.",
+                        IntegerToHex.convert(address), attempt, INTERRUPT_READ_ATTEMPTS);
+            }
+        }
+    }
+
+    /**
+     * Checks the line number.
+     *
+     * @param pinNumber line number
+     */
+    private void checkPinNumber(int pinNumber) {
+        if (pinNumber < 0 || pinNumber >= PINS) {
+            throw new IllegalArgumentException("Pin number must be from 0 to " + (PINS - 1) + ".");
+        }
+    }
+
+    /**
+     * Writes directions of all lines.
+     *
+     * @param inputMask   bit mask of input lines
+     * @param outputLatch bit mask of output states
+     * @throws NativeMemoryException if there is issue while writing to the expander
+     */
+    abstract void writeDirections(int inputMask, int outputLatch) throws NativeMemoryException;
+
+    /**
+     * Writes output states of all lines in one transaction.
+     *
+     * @param outputLatch bit mask of output states
+     * @param inputMask   bit mask of input lines
+     * @throws NativeMemoryException if there is issue while writing to the expander
+     */
+    abstract void writeOutputs(int outputLatch, int inputMask) throws NativeMemoryException;
+
+    /**
+     * Reads states of all lines in one transaction.
+     *
+     * @return bit mask of line states
+     * @throws NativeMemoryException if there is issue while reading from the expander
+     */
+    abstract int readInputs() throws NativeMemoryException;
+
+    /**
+     * Enables change interrupts of input lines, if expander needs configuration.
+     *
+     * @param inputMask bit mask of input lines
+     * @throws NativeMemoryException if there is issue while writing to the expander
+     */
+    void enableInterrupts(int inputMask) throws NativeMemoryException {
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "address=" + IntegerToHex.convert(address) +
+                ", inputMask=" + IntegerToHex.convert(inputMask) +
+                ", outputLatch=" + IntegerToHex.convert(outputLatch) +
+                ", interruptPin=" + (interruptPin == null ? "none" : interruptPin.getName()) +
+                '}';
+    }
+}
@@ -0,0 +1,179 @@
+package org.digitalsmile.gpio.i2c.device;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.pin.attributes.PinDirection;
+import org.digitalsmile.gpio.pin.attributes.PinEvent;
+import org.digitalsmile.gpio.pin.attributes.PinState;
+import org.digitalsmile.gpio.pin.event.DetectedEvent;
+import org.digitalsmile.gpio.pin.event.EventSubscription;
+import org.digitalsmile.gpio.pin.event.PinEventProcessing;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Virtual pin of I2C GPIO expander line with API similar to {@link org.digitalsmile.gpio.pin.Pin}.
+ * Writes go through the output latch of expander, reads and events are served by expander (see {@link I2CExpander}).
+ * <p>
+ * Instance of pin can only be obtained from {@link I2CExpander#getPin(int, PinDirection)}.
+ */
+public final class I2CExpanderPin {
+    private final I2CExpander expander;
+    private final int pinNumber;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile PinDirection pinDirection;
+    private volatile PinState pinState = PinState.LOW;
+    private int sequenceNumber;
+
+    /**
+     * Creates virtual pin.
+     *
+     * @param expander  expander of the line
+     * @param pinNumber line number
+     */
+    I2CExpanderPin(I2CExpander expander, int pinNumber) {
+        this.expander = expander;
+        this.pinNumber = pinNumber;
+    }
+
+    /**
+     * Gets the line number of expander.
+     *
+     * @return the line number
+     */
+    public int getPinNumber() {
+        return pinNumber;
+    }
+
+    /**
+     * Gets the last known pin state.
+     *
+     * @return the pin state
+     */
+    public PinState getState() {
+        return pinState;
+    }
+
+    /**
+     * Gets the pin direction (INPUT / OUTPUT)
+     *
+     * @return pin direction (INPUT / OUTPUT)
+     */
+    public PinDirection getDirection() {
+        return pinDirection;
+    }
+
+    /**
+     * Sets the pin direction (INPUT / OUTPUT).
+     *
+     * @param pinDirection new pin direction
+     * @throws NativeMemoryException if errors occurred during configuring the expander
+     */
+    public void setDirection(PinDirection pinDirection) throws NativeMemoryException {
+        expander.setDirection(pinNumber, pinDirection);
+    }
+
+    /**
+     * Reads the state of the pin. Output pins return the latch state, input pins are read from expander,
+     * or from the states read on the last interrupt, if it is attached.
+     *
+     * @return the state of the pin
+     * @throws NativeMemoryException if errors occurred during reading the state
+     */
+    public PinState read() throws NativeMemoryException {
+        if (pinDirection == PinDirection.OUTPUT) {
+            this.pinState = expander.getOutput(pinNumber) ? PinState.HIGH : PinState.LOW;
+        } else {
+            this.pinState = (expander.read() & (1 << pinNumber)) != 0 ? PinState.HIGH : PinState.LOW;
+        }
+        return pinState;
+    }
+
+    /**
+     * Writes the state to the pin. The whole port is written in one transaction, unless deferred writes are enabled in expander.
+     *
+     * @param pinState the state to be written
+     * @throws NativeMemoryException if errors occurred during writing new state
+     */
+    public void write(PinState pinState) throws NativeMemoryException {
+        if (pinDirection != PinDirection.OUTPUT) {
+            throw new RuntimeException("Can't write to input pin " + pinNumber + " of " + expander + ". The direction is set to input.");
+        }
+        var bit = 1 << pinNumber;
+        expander.write(bit, pinState == PinState.HIGH ? bit : 0);
+        this.pinState = pinState;
+    }
+
+    /**
+     * Subscribes to the changes of input pin. Callback is called on the event detection thread of expander INT pin.
+     * Events are delivered only when interrupt of expander is attached (see {@link I2CExpander#attachInterrupt}).
+     *
+     * @param pinEvent       the event to detect
+     * @param eventProcessor event processor callback
+     * @return subscription, that can be used to unsubscribe
+     */
+    public EventSubscription subscribe(PinEvent pinEvent, PinEventProcessing eventProcessor) {
+        return subscribe(pinEvent, eventProcessor, Runnable::run);
+    }
+
+    /**
+     * Subscribes to the changes of input pin. Callback is called on the given executor.
+     * Events are delivered only when interrupt of expander is attached (see {@link I2CExpander#attachInterrupt}).
+     *
+     * @param pinEvent       the event to detect
+     * @param eventProcessor event processor callback
+     * @param executor       executor to deliver events on
+     * @return subscription, that can be used to unsubscribe
+     */
+    public EventSubscription subscribe(PinEvent pinEvent, PinEventProcessing eventProcessor, Executor executor) {
+        var subscription = new EventSubscription(pinEvent, eventProcessor, executor);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Removes the subscription from the pin.
+     *
+     * @param subscription subscription to be removed
+     */
+    public void unsubscribe(EventSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * Sets the direction after expander is configured.
+     *
+     * @param pinDirection new pin direction
+     */
+    void direction(PinDirection pinDirection) {
+        this.pinDirection = pinDirection;
+    }
+
+    /**
+     * Delivers the change of input line to subscriptions. Called only from the event detection thread of expander INT pin.
+     *
+     * @param timestamp timestamp of INT edge in nanoseconds
+     * @param high      new state of the line
+     */
+    void deliver(long timestamp, boolean high) {
+        this.pinState = high ? PinState.HIGH : PinState.LOW;
+        var event = new DetectedEvent(timestamp, high ? PinEvent.RISING : PinEvent.FALLING, ++sequenceNumber);
+        var events = List.of(event);
+        for (var subscription : subscriptions) {
+            if (subscription.accepts(event.pinEvent())) {
+                subscription.executor().execute(() -> subscription.eventProcessor().process(events));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "I2CExpanderPin{" +
+                "pinNumber=" + pinNumber +
+                ", pinDirection=" + pinDirection +
+                ", pinState=" + pinState +
+                '}';
+    }
+}
@@ -0,0 +1,86 @@
+package org.digitalsmile.gpio.i2c.device;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.i2c.I2CBatch;
+import org.digitalsmile.gpio.i2c.I2CBus;
+
+/**
+ * Driver of MCP23017 16-bit I2C GPIO expander. Registers are used in default configuration (IOCON.BANK = 0) with sequential addressing,
+ * so both ports are written and read in one transaction. Interrupt outputs are mirrored, any of INTA / INTB lines can be attached.
+ */
+public final class MCP23017 extends I2CExpander {
+    /**
+     * Default device address.
+     */
+    public static final int DEFAULT_ADDRESS = 0x20;
+
+    private static final int IODIRA = 0x00;
+    private static final int GPINTENA = 0x04;
+    private static final int INTCONA = 0x08;
+    private static final int IOCON = 0x0A;
+    private static final int GPPUA = 0x0C;
+    private static final int GPIOA = 0x12;
+    private static final int OLATA = 0x14;
+
+    private static final int IOCON_MIRROR = 0x40;
+
+    private final I2CBatch readBatch = new I2CBatch().read(GPIOA, 2);
+
+    /**
+     * Creates MCP23017 driver. Device is not touched until pins are configured.
+     *
+     * @param bus     I2C bus
+     * @param address device address on the bus
+     */
+    public MCP23017(I2CBus bus, int address) {
+        super(bus, address);
+    }
+
+    /**
+     * Enables internal 100k pull-up resistors of input lines.
+     *
+     * @param mask bit mask of lines with pull-up enabled
+     * @throws NativeMemoryException if there is issue while writing to the expander
+     */
+    public synchronized void setPullUps(int mask) throws NativeMemoryException {
+        bus.execute(address, new I2CBatch().write(GPPUA, toBytes(mask)));
+    }
+
+    @Override
+    void writeDirections(int inputMask, int outputLatch) throws NativeMemoryException {
+        // latch goes first, so new outputs do not glitch
+        bus.execute(address, new I2CBatch()
+                .write(OLATA, toBytes(outputLatch))
+                .write(IODIRA, toBytes(inputMask)));
+    }
+
+    @Override
+    void writeOutputs(int outputLatch, int inputMask) throws NativeMemoryException {
+        bus.execute(address, new I2CBatch().write(OLATA, toBytes(outputLatch)));
+    }
+
+    @Override
+    int readInputs() throws NativeMemoryException {
+        var data = bus.execute(address, readBatch).getFirst();
+        return (data[0] & 0xFF) | (data[1] & 0xFF) << 8;
+    }
+
+    @Override
+    void enableInterrupts(int inputMask) throws NativeMemoryException {
+        // interrupt on any change compared to previous value
+        bus.execute(address, new I2CBatch()
+                .write(IOCON, IOCON_MIRROR)
+                .write(INTCONA, new byte[]{0, 0})
+                .write(GPINTENA, toBytes(inputMask)));
+    }
+
+    /**
+     * Converts port values into register values of A and B ports.
+     *
+     * @param value 16-bit value
+     * @return bytes of A and B ports
+     */
+    private static byte[] toBytes(int value) {
+        return new byte[]{(byte) value, (byte) (value >> 8)};
+    }
+}
@@ -0,0 +1,292 @@
+package org.digitalsmile.gpio.i2c.device;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.IntegerToHex;
+import org.digitalsmile.gpio.i2c.I2CBatch;
+import org.digitalsmile.gpio.i2c.I2CBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Driver of PCA9685 16-channel 12-bit PWM expander.
+ * <p>
+ * Channel values are set into pending frame and sent to the device only by {@link #flush()} or {@link #flushAsync()}.
+ * Frame is double-buffered: flush copies pending frame under short lock and sends it, while other threads can already prepare the next one.
+ * Only channels that differ from the last sent frame are written, consecutive dirty channels are sent as one auto-increment block
+ * and all blocks of the frame are executed in one I2C_RDWR transaction.
+ */
+public final class PCA9685 {
+    private static final Logger logger = LoggerFactory.getLogger(PCA9685.class);
+
+    /**
+     * Number of PWM channels.
+     */
+    public static final int CHANNELS = 16;
+    /**
+     * Resolution of PWM counter.
+     */
+    public static final int RESOLUTION = 4096;
+    /**
+     * Default device address.
+     */
+    public static final int DEFAULT_ADDRESS = 0x40;
+
+    private static final int MODE1 = 0x00;
+    private static final int MODE2 = 0x01;
+    private static final int LED0_ON_L = 0x06;
+    private static final int PRE_SCALE = 0xFE;
+
+    private static final int MODE1_RESTART = 0x80;
+    private static final int MODE1_AUTO_INCREMENT = 0x20;
+    private static final int MODE1_SLEEP = 0x10;
+    private static final int MODE1_ALLCALL = 0x01;
+    private static final int MODE2_OUTDRV = 0x04;
+    // full on / full off bit in ON_H / OFF_H registers
+    private static final int FULL = 0x10;
+
+    private static final int CHANNEL_SIZE = 4;
+    private static final int FRAME_SIZE = CHANNELS * CHANNEL_SIZE;
+    private static final double OSCILLATOR_FREQUENCY = 25_000_000;
+    // oscillator needs 500us to stabilize after wake up
+    private static final long OSCILLATOR_STARTUP_NS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private final I2CBus bus;
+    private final int address;
+
+    // frame being prepared by setters, guarded by itself
+    private final byte[] pending = new byte[FRAME_SIZE];
+    // frame being sent and frame known to be on the device, guarded by this
+    private final byte[] frame = new byte[FRAME_SIZE];
+    private final byte[] sent = new byte[FRAME_SIZE];
+    private boolean sentValid = false;
+    private long framesSent;
+
+    /**
+     * Creates PCA9685 driver. Device is not touched until {@link #configure(int)} or flush is called.
+     *
+     * @param bus     I2C bus
+     * @param address device address on the bus
+     */
+    public PCA9685(I2CBus bus, int address) {
+        this.bus = bus;
+        this.address = address;
+    }
+
+    /**
+     * Configures the device: enables auto-increment and totem pole outputs and sets PWM frequency.
+     *
+     * @param frequency PWM frequency in Hz (24 - 1526)
+     * @throws NativeMemoryException if there is issue while configuring the device
+     */
+    public synchronized void configure(int frequency) throws NativeMemoryException {
+        var prescale = (int) Math.round(OSCILLATOR_FREQUENCY / (RESOLUTION * (double) frequency)) - 1;
+        if (prescale < 3 || prescale > 255) {
+            throw new IllegalArgumentException("Frequency " + frequency + "Hz is out of range.");
+        }
+        logger.debug("Configuring PCA9685 {} with frequency {}Hz (prescale {}).", IntegerToHex.convert(address), frequency, prescale);
+        // prescale can be written only while oscillator is off
+        bus.execute(address, new I2CBatch()
+                .write(MODE1, MODE1_SLEEP | MODE1_AUTO_INCREMENT | MODE1_ALLCALL)
+                .write(PRE_SCALE, prescale)
+                .write(MODE2, MODE2_OUTDRV)
+                .write(MODE1, MODE1_AUTO_INCREMENT | MODE1_ALLCALL));
+        LockSupport.parkNanos(OSCILLATOR_STARTUP_NS);
+        bus.execute(address, new I2CBatch().write(MODE1, MODE1_RESTART | MODE1_AUTO_INCREMENT | MODE1_ALLCALL));
+        this.sentValid = false;
+    }
+
+    /**
+     * Sets the on and off counter values of the channel in pending frame.
+     *
+     * @param channel channel number (0 - 15)
+     * @param on      counter value to switch output on (0 - 4095)
+     * @param off     counter value to switch output off (0 - 4095)
+     */
+    public void setPwm(int channel, int on, int off) {
+        if (on < 0 || on >= RESOLUTION || off < 0 || off >= RESOLUTION) {
+            throw new IllegalArgumentException("Counter values must be from 0 to " + (RESOLUTION - 1) + ".");
+        }
+        setChannel(channel, on, off);
+    }
+
+    /**
+     * Sets the duty cycle of the channel in pending frame. Duty cycles rounding to 0 and 4096 counts switch the output fully off and on.
+     *
+     * @param channel   channel number (0 - 15)
+     * @param dutyCycle duty cycle from 0 to 1
+     */
+    public void setDutyCycle(int channel, double dutyCycle) {
+        if (dutyCycle < 0 || dutyCycle > 1) {
+            throw new IllegalArgumentException("Duty cycle must be from 0 to 1.");
+        }
+        var off = (int) Math.round(dutyCycle * RESOLUTION);
+        if (off == 0) {
+            setFullOff(channel);
+        } else if (off == RESOLUTION) {
+            // values rounding up to the full period are fully on, OFF register can hold only 0 - 4095
+            setFullOn(channel);
+        } else {
+            setChannel(channel, 0, off);
+        }
+    }
+
+    /**
+     * Switches the channel fully on in pending frame.
+     *
+     * @param channel channel number (0 - 15)
+     */
+    public void setFullOn(int channel) {
+        setChannel(channel, FULL << 8, 0);
+    }
+
+    /**
+     * Switches the channel fully off in pending frame.
+     *
+     * @param channel channel number (0 - 15)
+     */
+    public void setFullOff(int channel) {
+        setChannel(channel, 0, FULL << 8);
+    }
+
+    /**
+     * Sends changed channels of pending frame to the device in one transaction.
+     *
+     * @return true if anything was sent
+     * @throws NativeMemoryException if there is issue while writing to the device
+     */
+    public synchronized boolean flush() throws NativeMemoryException {
+        var batch = prepare();
+        if (batch == null) {
+            return false;
+        }
+        try {
+            bus.execute(address, batch);
+        } catch (NativeMemoryException e) {
+            invalidate();
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Sends changed channels of pending frame to the device through the bus arbiter.
+     * Frames are sent in the order of calls, so the next frame can be prepared and flushed without waiting.
+     *
+     * @return future completed when frame is sent
+     */
+    public synchronized CompletableFuture<Void> flushAsync() {
+        var batch = prepare();
+        if (batch == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        var future = bus.getArbiter().submit(address, batch);
+        future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                invalidate();
+            }
+        });
+        return future.thenApply(result -> null);
+    }
+
+    /**
+     * Invalidates the known state of the device, so the next flush sends all channels.
+     */
+    public synchronized void invalidate() {
+        this.sentValid = false;
+    }
+
+    /**
+     * Gets the number of frames sent to the device.
+     *
+     * @return number of frames
+     */
+    public synchronized long getFramesSent() {
+        return framesSent;
+    }
+
+    /**
+     * Gets the device address.
+     *
+     * @return device address
+     */
+    public int getAddress() {
+        return address;
+    }
+
+    /**
+     * Sets the registers of the channel in pending frame.
+     *
+     * @param channel channel number
+     * @param on      value of ON registers
+     * @param off     value of OFF registers
+     */
+    private void setChannel(int channel, int on, int off) {
+        if (channel < 0 || channel >= CHANNELS) {
+            throw new IllegalArgumentException("Channel must be from 0 to " + (CHANNELS - 1) + ".");
+        }
+        var offset = channel * CHANNEL_SIZE;
+        synchronized (pending) {
+            pending[offset] = (byte) on;
+            pending[offset + 1] = (byte) (on >> 8);
+            pending[offset + 2] = (byte) off;
+            pending[offset + 3] = (byte) (off >> 8);
+        }
+    }
+
+    /**
+     * Copies pending frame and prepares the batch with blocks of dirty channels.
+     * The frame is considered sent, failed send invalidates it, so the next flush sends all channels.
+     *
+     * @return batch to be executed or null if nothing changed
+     */
+    private I2CBatch prepare() {
+        synchronized (pending) {
+            System.arraycopy(pending, 0, frame, 0, FRAME_SIZE);
+        }
+        var batch = new I2CBatch();
+        var channel = 0;
+        while (channel < CHANNELS) {
+            if (!isDirty(channel)) {
+                channel++;
+                continue;
+            }
+            var start = channel;
+            while (channel < CHANNELS && isDirty(channel)) {
+                channel++;
+            }
+            var block = new byte[(channel - start) * CHANNEL_SIZE];
+            System.arraycopy(frame, start * CHANNEL_SIZE, block, 0, block.length);
+            batch.write(LED0_ON_L + start * CHANNEL_SIZE, block);
+        }
+        if (batch.isEmpty()) {
+            return null;
+        }
+        System.arraycopy(frame, 0, sent, 0, FRAME_SIZE);
+        this.sentValid = true;
+        framesSent++;
+        return batch;
+    }
+
+    /**
+     * Checks if the channel of frame differs from the one on the device.
+     *
+     * @param channel channel number
+     * @return true if channel should be sent
+     */
+    private boolean isDirty(int channel) {
+        if (!sentValid) {
+            return true;
+        }
+        var offset = channel * CHANNEL_SIZE;
+        for (int i = offset; i < offset + CHANNEL_SIZE; i++) {
+            if (frame[i] != sent[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package org.digitalsmile.gpio.i2c.device;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.i2c.I2CBus;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Driver of PCF8575 16-bit I2C GPIO expander. Device has no registers, both ports are written and read as two bytes in one message.
+ * Lines are quasi-bidirectional: input lines are written HIGH with weak pull-up and read back.
+ * Interrupt line is asserted on any input change and released on read. Raw I2C support of the bus is required.
+ */
+public final class PCF8575 extends I2CExpander {
+    /**
+     * Default device address.
+     */
+    public static final int DEFAULT_ADDRESS = 0x20;
+
+    private final Arena arena;
+    private final MemorySegment port;
+
+    /**
+     * Creates PCF8575 driver. Device is not touched until pins are configured.
+     *
+     * @param bus     I2C bus with raw I2C support
+     * @param address device address on the bus
+     */
+    public PCF8575(I2CBus bus, int address) {
+        super(bus, address);
+        if (!bus.isRawI2C()) {
+            throw new RuntimeException("PCF8575 requires raw I2C support of the bus.");
+        }
+        this.arena = Arena.ofShared();
+        this.port = arena.allocate(2);
+    }
+
+    @Override
+    void writeDirections(int inputMask, int outputLatch) throws NativeMemoryException {
+        writeOutputs(outputLatch, inputMask);
+    }
+
+    @Override
+    void writeOutputs(int outputLatch, int inputMask) throws NativeMemoryException {
+        var value = outputLatch | inputMask;
+        port.set(ValueLayout.JAVA_BYTE, 0, (byte) value);
+        port.set(ValueLayout.JAVA_BYTE, 1, (byte) (value >> 8));
+        bus.transfer(address, port, MemorySegment.NULL);
+    }
+
+    @Override
+    int readInputs() throws NativeMemoryException {
+        bus.transfer(address, MemorySegment.NULL, port);
+        return (port.get(ValueLayout.JAVA_BYTE, 0) & 0xFF) | (port.get(ValueLayout.JAVA_BYTE, 1) & 0xFF) << 8;
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        arena.close();
+    }
+}
@@ -0,0 +1,72 @@
+package org.digitalsmile.gpio.i2c.structs;
+
+import io.github.digitalsmile.annotation.structure.NativeMemoryLayout;
+
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Structure that represents i2c_msg, single message of combined I2C_RDWR transaction.
+ *
+ * @param address device address
+ * @param flags   message flags (e.g. I2C_M_RD)
+ * @param length  length of the message buffer
+ * @param buffer  native buffer with data to be written or to be filled with read data
+ */
+public record I2CMessage(short address, short flags, short length, MemorySegment buffer) implements NativeMemoryLayout {
+    public static final MemoryLayout LAYOUT = MemoryLayout.structLayout(
+            ValueLayout.JAVA_SHORT.withName("addr"),
+            ValueLayout.JAVA_SHORT.withName("flags"),
+            ValueLayout.JAVA_SHORT.withName("len"),
+            MemoryLayout.paddingLayout(2),
+            ValueLayout.ADDRESS.withName("buf")
+    );
+    private static final VarHandle VH_ADDRESS = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("addr"));
+    private static final VarHandle VH_FLAGS = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("flags"));
+    private static final VarHandle VH_LENGTH = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("len"));
+    private static final VarHandle VH_BUFFER = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("buf"));
+
+    public static I2CMessage createEmpty() {
+        return new I2CMessage((short) 0, (short) 0, (short) 0, MemorySegment.NULL);
+    }
+
+    @Override
+    public MemoryLayout getMemoryLayout() {
+        return LAYOUT;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public I2CMessage fromBytes(MemorySegment buffer) {
+        var address = (short) VH_ADDRESS.get(buffer, 0L);
+        var flags = (short) VH_FLAGS.get(buffer, 0L);
+        var length = (short) VH_LENGTH.get(buffer, 0L);
+        var data = ((MemorySegment) VH_BUFFER.get(buffer, 0L)).reinterpret(Short.toUnsignedInt(length));
+        return new I2CMessage(address, flags, length, data);
+    }
+
+    @Override
+    public void toBytes(MemorySegment buffer) {
+        VH_ADDRESS.set(buffer, 0L, address);
+        VH_FLAGS.set(buffer, 0L, flags);
+        VH_LENGTH.set(buffer, 0L, length);
+        VH_BUFFER.set(buffer, 0L, this.buffer);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "I2CMessage{" +
+                "address=" + address +
+                ", flags=" + flags +
+                ", length=" + Short.toUnsignedInt(length) +
+                ", buffer=" + buffer +
+                '}';
+    }
+}
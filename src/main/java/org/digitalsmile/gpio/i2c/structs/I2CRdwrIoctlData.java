@@ -0,0 +1,60 @@
+package org.digitalsmile.gpio.i2c.structs;
+
+import io.github.digitalsmile.annotation.structure.NativeMemoryLayout;
+
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Structure that represents i2c_rdwr_ioctl_data for combined transactions through I2C_RDWR ioctl.
+ *
+ * @param messages native array of {@link I2CMessage} structures
+ * @param count    number of messages in the array
+ */
+public record I2CRdwrIoctlData(MemorySegment messages, int count) implements NativeMemoryLayout {
+    public static final MemoryLayout LAYOUT = MemoryLayout.structLayout(
+            ValueLayout.ADDRESS.withName("msgs"),
+            ValueLayout.JAVA_INT.withName("nmsgs"),
+            MemoryLayout.paddingLayout(4)
+    );
+    private static final VarHandle VH_MESSAGES = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("msgs"));
+    private static final VarHandle VH_COUNT = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("nmsgs"));
+
+    public static I2CRdwrIoctlData createEmpty() {
+        return new I2CRdwrIoctlData(MemorySegment.NULL, 0);
+    }
+
+    @Override
+    public MemoryLayout getMemoryLayout() {
+        return LAYOUT;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public I2CRdwrIoctlData fromBytes(MemorySegment buffer) {
+        var count = (int) VH_COUNT.get(buffer, 0L);
+        var messages = ((MemorySegment) VH_MESSAGES.get(buffer, 0L)).reinterpret(I2CMessage.LAYOUT.byteSize() * count);
+        return new I2CRdwrIoctlData(messages, count);
+    }
+
+    @Override
+    public void toBytes(MemorySegment buffer) {
+        VH_MESSAGES.set(buffer, 0L, messages);
+        VH_COUNT.set(buffer, 0L, count);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "I2CRdwrIoctlData{" +
+                "messages=" + messages +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -16,7 +16,7 @@ import java.lang.invoke.VarHandle;
  * @param readWrite read or write byte
  * @param command   command to execute
  * @param size      size of data
- * @param data      the data to be sent
+ * @param data      the data to be sent, null for quick command
  */
 public record SMBusIoctlData(byte readWrite, byte command, int size, SMBusData data) implements NativeMemoryLayout {
     public static final MemoryLayout LAYOUT = MemoryLayout.structLayout(
@@ -49,7 +49,8 @@ public record SMBusIoctlData(byte readWrite, byte command, int size, SMBusData d
         var command = (byte) VH_COMMAND.get(buffer, 0L);
         var size = (int) VH_SIZE.get(buffer, 0L);
         var tmp = (MemorySegment) MH_DATA.get(buffer, 0L);
-        var data0 = data.fromBytes(tmp);
+        // quick command has no data
+        var data0 = data == null || tmp.equals(MemorySegment.NULL) ? null : data.fromBytes(tmp);
         return new SMBusIoctlData(readWrite, command, size, data0);
     }
 
@@ -58,6 +59,10 @@ public record SMBusIoctlData(byte readWrite, byte command, int size, SMBusData d
         VH_READ_WRITE.set(buffer, 0L, readWrite);
         VH_COMMAND.set(buffer, 0L, command);
         VH_SIZE.set(buffer, 0L, size);
+        if (data == null) {
+            MH_DATA.set(buffer, 0L, MemorySegment.NULL);
+            return;
+        }
         var smbusOffHeap = offHeap.allocate(SMBusData.LAYOUT);
         data.toBytes(smbusOffHeap);
         MH_DATA.set(buffer, 0L, smbusOffHeap);
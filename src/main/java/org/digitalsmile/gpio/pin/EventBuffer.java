@@ -0,0 +1,118 @@
+package org.digitalsmile.gpio.pin;
+
+import org.digitalsmile.gpio.pin.attributes.PinEvent;
+import org.digitalsmile.gpio.pin.event.DetectedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Internal growable buffer of detected events, stored in primitive arrays.
+ * Arrays are reused between batches, so in steady state collecting events does not allocate.
+ */
+final class EventBuffer {
+    private long[] timestamps;
+    private int[] events;
+    private int[] sequenceNumbers;
+    private int count;
+
+    /**
+     * Creates buffer with initial capacity.
+     *
+     * @param capacity initial capacity of buffer
+     */
+    EventBuffer(int capacity) {
+        this.timestamps = new long[capacity];
+        this.events = new int[capacity];
+        this.sequenceNumbers = new int[capacity];
+    }
+
+    /**
+     * Adds the event to the buffer, grows arrays if needed.
+     *
+     * @param timestamp      timestamp in nanoseconds
+     * @param event          event type
+     * @param sequenceNumber sequence number of the event on the line
+     */
+    void add(long timestamp, int event, int sequenceNumber) {
+        if (count == timestamps.length) {
+            var capacity = timestamps.length * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            events = Arrays.copyOf(events, capacity);
+            sequenceNumbers = Arrays.copyOf(sequenceNumbers, capacity);
+        }
+        timestamps[count] = timestamp;
+        events[count] = event;
+        sequenceNumbers[count] = sequenceNumber;
+        count++;
+    }
+
+    /**
+     * Copies events matching the mask into target buffer. Target buffer is cleared first.
+     *
+     * @param eventMask bit mask of {@link PinEvent} values
+     * @param target    buffer to copy events into
+     */
+    void filter(int eventMask, EventBuffer target) {
+        target.clear();
+        for (int i = 0; i < count; i++) {
+            if ((events[i] & eventMask) != 0) {
+                target.add(timestamps[i], events[i], sequenceNumbers[i]);
+            }
+        }
+    }
+
+    /**
+     * Converts events matching the mask into immutable list of {@link DetectedEvent}.
+     *
+     * @param eventMask bit mask of {@link PinEvent} values
+     * @return immutable list of detected events
+     */
+    List<DetectedEvent> toDetectedEvents(int eventMask) {
+        List<DetectedEvent> eventList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if ((events[i] & eventMask) != 0) {
+                eventList.add(new DetectedEvent(timestamps[i], PinEvent.getByValue(events[i]), sequenceNumbers[i]));
+            }
+        }
+        return List.copyOf(eventList);
+    }
+
+    /**
+     * Gets bit mask of all event types in the buffer.
+     *
+     * @return bit mask of {@link PinEvent} values
+     */
+    int eventMask() {
+        var mask = 0;
+        for (int i = 0; i < count; i++) {
+            mask |= events[i];
+        }
+        return mask;
+    }
+
+    long[] timestamps() {
+        return timestamps;
+    }
+
+    int[] events() {
+        return events;
+    }
+
+    int[] sequenceNumbers() {
+        return sequenceNumbers;
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    void clear() {
+        count = 0;
+    }
+}
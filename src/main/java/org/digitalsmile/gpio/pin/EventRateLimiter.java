@@ -0,0 +1,203 @@
+package org.digitalsmile.gpio.pin;
+
+import org.digitalsmile.gpio.pin.attributes.PinEvent;
+import org.digitalsmile.gpio.pin.event.EventMetrics;
+import org.digitalsmile.gpio.pin.event.EventRateLimit;
+import org.digitalsmile.gpio.pin.event.EventRateLimitAction;
+import org.digitalsmile.gpio.pin.event.EventRateLimitListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Internal token bucket rate limiter of GPIO Pin events.
+ * Decision methods are called only from the watcher thread, metrics can be read from any thread.
+ */
+final class EventRateLimiter {
+    /**
+     * Event should be delivered.
+     */
+    static final int DELIVER = 0;
+    /**
+     * Event should be dropped and counted in summary.
+     */
+    static final int COALESCE = 1;
+    /**
+     * Edge detection should be disabled.
+     */
+    static final int SUSPEND = 2;
+
+    // summary of coalesced events is reported at most once per second during the storm
+    private static final long SUMMARY_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong detectedEvents = new AtomicLong();
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong suspensions = new AtomicLong();
+    private final AtomicLong resumptions = new AtomicLong();
+
+    private volatile EventRateLimit rateLimit;
+    private volatile EventRateLimitListener listener;
+
+    private double tokens;
+    private long lastRefill;
+    private long coalescedRising;
+    private long coalescedFalling;
+    private long lastSummary;
+    private boolean suspended;
+    private long suspendedUntil;
+    private long suppressedWhileSuspended;
+
+    /**
+     * Sets the rate limit and listener.
+     *
+     * @param rateLimit rate limit or null to deliver all events
+     * @param listener  listener of rate limit actions, can be null
+     */
+    void configure(EventRateLimit rateLimit, EventRateLimitListener listener) {
+        this.listener = listener;
+        this.rateLimit = rateLimit;
+    }
+
+    /**
+     * Decides what to do with detected event.
+     *
+     * @param eventId event identifier (see {@link PinEvent})
+     * @param now     current time in nanoseconds
+     * @return one of {@link #DELIVER}, {@link #COALESCE} or {@link #SUSPEND}
+     */
+    int acquire(int eventId, long now) {
+        detectedEvents.incrementAndGet();
+        var limit = this.rateLimit;
+        if (limit == null) {
+            return DELIVER;
+        }
+        if (isSuspended()) {
+            suppressedWhileSuspended++;
+            coalescedEvents.incrementAndGet();
+            return COALESCE;
+        }
+        if (lastRefill == 0) {
+            tokens = limit.burstSize();
+        } else {
+            tokens = Math.min(limit.burstSize(), tokens + (now - lastRefill) * limit.eventsPerSecond() / NANOS_IN_SECOND);
+        }
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return DELIVER;
+        }
+        coalescedEvents.incrementAndGet();
+        if (limit.action() == EventRateLimitAction.SUSPEND) {
+            return SUSPEND;
+        }
+        if (eventId == PinEvent.RISING.getValue()) {
+            coalescedRising++;
+        } else {
+            coalescedFalling++;
+        }
+        return COALESCE;
+    }
+
+    /**
+     * Counts delivered events.
+     *
+     * @param count number of delivered events
+     */
+    void delivered(int count) {
+        deliveredEvents.addAndGet(count);
+    }
+
+    /**
+     * Reports summary of coalesced events to the listener.
+     *
+     * @param now   current time in nanoseconds
+     * @param force true to report regardless of summary interval
+     */
+    void reportCoalesced(long now, boolean force) {
+        if (coalescedRising == 0 && coalescedFalling == 0) {
+            return;
+        }
+        if (!force && now - lastSummary < SUMMARY_INTERVAL_NS) {
+            return;
+        }
+        var rising = coalescedRising;
+        var falling = coalescedFalling;
+        coalescedRising = 0;
+        coalescedFalling = 0;
+        lastSummary = now;
+        var listener = this.listener;
+        if (listener != null) {
+            listener.onCoalesced(rising, falling, getMetrics());
+        }
+    }
+
+    /**
+     * Marks edge detection as suspended for the cooldown period.
+     *
+     * @param now current time in nanoseconds
+     */
+    void suspended(long now) {
+        var limit = this.rateLimit;
+        suspended = true;
+        suspendedUntil = now + limit.cooldown().toNanos();
+        suppressedWhileSuspended = 0;
+        suspensions.incrementAndGet();
+        var listener = this.listener;
+        if (listener != null) {
+            listener.onSuspended(limit.cooldown(), getMetrics());
+        }
+    }
+
+    /**
+     * Marks edge detection as resumed, the bucket is refilled to the full burst size.
+     */
+    void resumed() {
+        suspended = false;
+        lastRefill = 0;
+        resumptions.incrementAndGet();
+        var listener = this.listener;
+        if (listener != null) {
+            listener.onResumed(suppressedWhileSuspended, getMetrics());
+        }
+    }
+
+    /**
+     * Checks if edge detection is suspended.
+     *
+     * @return true if edge detection is suspended
+     */
+    boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Checks if edge detection should be enabled again, because the cooldown is over or rate limit was removed.
+     *
+     * @param now current time in nanoseconds
+     * @return true if edge detection should be enabled
+     */
+    boolean shouldResume(long now) {
+        return isSuspended() && (rateLimit == null || now - suspendedUntil >= 0);
+    }
+
+    /**
+     * Gets the time left until the end of cooldown.
+     *
+     * @param now current time in nanoseconds
+     * @return nanoseconds left, zero or negative if cooldown is over
+     */
+    long cooldownLeft(long now) {
+        return suspendedUntil - now;
+    }
+
+    /**
+     * Gets the snapshot of metrics.
+     *
+     * @return metrics snapshot
+     */
+    EventMetrics getMetrics() {
+        return new EventMetrics(detectedEvents.get(), deliveredEvents.get(), coalescedEvents.get(), suspensions.get(), resumptions.get());
+    }
+}
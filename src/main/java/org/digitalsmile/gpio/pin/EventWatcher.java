@@ -0,0 +1,518 @@
+package org.digitalsmile.gpio.pin;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.core.file.FileDescriptor;
+import org.digitalsmile.gpio.core.file.FileDescriptorNative;
+import org.digitalsmile.gpio.core.file.FileFlag;
+import org.digitalsmile.gpio.core.ioctl.Command;
+import org.digitalsmile.gpio.core.ioctl.Ioctl;
+import org.digitalsmile.gpio.core.ioctl.IoctlNative;
+import org.digitalsmile.gpio.core.poll.Poll;
+import org.digitalsmile.gpio.core.poll.PollFlag;
+import org.digitalsmile.gpio.core.poll.PollNative;
+import org.digitalsmile.gpio.core.poll.PollingData;
+import org.digitalsmile.gpio.core.scheduler.Scheduler;
+import org.digitalsmile.gpio.core.scheduler.SchedulerNative;
+import org.digitalsmile.gpio.pin.attributes.PinFlag;
+import org.digitalsmile.gpio.pin.event.BusyPollOptions;
+import org.digitalsmile.gpio.pin.event.DetectedEvent;
+import org.digitalsmile.gpio.pin.event.EventSinkSubscription;
+import org.digitalsmile.gpio.pin.event.EventSubscription;
+import org.digitalsmile.gpio.pin.structs.LineConfig;
+import org.digitalsmile.gpio.pin.structs.LineConfigAttribute;
+import org.digitalsmile.gpio.pin.structs.LineEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Internal class for watching the events on GPIO Pin.
+ * Single watcher reads the events from kernel into native buffer and fans them out to all subscriptions of the pin.
+ * Events are decoded into primitive arrays, {@link DetectedEvent} objects are created only if there are list subscriptions.
+ * If the pin exceeds its event rate limit, the events are coalesced or edge detection is suspended by line reconfiguration.
+ * In low latency mode the watcher spins on non-blocking read and falls back to blocking poll after idle spin budget.
+ */
+final class EventWatcher implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(EventWatcher.class);
+    private static final Ioctl IOCTL = new IoctlNative();
+    private static final FileDescriptor FILE = new FileDescriptorNative();
+    private static final Poll POLL = new PollNative();
+    private static final Scheduler SCHEDULER = new SchedulerNative();
+    private static final int EDGE_FLAGS = PinFlag.EDGE_RISING.getValue() | PinFlag.EDGE_FALLING.getValue();
+    // default minimum buffer size is 16 line events
+    // see https://elixir.bootlin.com/linux/latest/source/include/uapi/linux/gpio.h#L185
+    private static final int KERNEL_EVENT_BUFFER_SIZE = 16;
+    private static final long EVENT_SIZE = LineEvent.LAYOUT.byteSize();
+    // offsets of fields in struct gpio_v2_line_event
+    private static final long TIMESTAMP_OFFSET = 0;
+    private static final long ID_OFFSET = 8;
+    private static final long LINE_SEQNO_OFFSET = 20;
+    // blocking poll is split into slices, so stop request is noticed without waiting for the whole timeout
+    private static final int STOP_CHECK_INTERVAL_MS = 100;
+    private static final long STOP_TIMEOUT_MS = 5_000;
+
+    private final String deviceName;
+    private final int pin;
+    private final int fd;
+    private final long lineFlags;
+    private final EventRateLimiter rateLimiter;
+    private final int eventBufferSize;
+    private final Duration updatePeriod;
+    private final BusyPollOptions busyPoll;
+    private final LatencyRecorder latencyRecorder;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<SinkTarget> sinks = new CopyOnWriteArrayList<>();
+    private final EventBuffer eventBuffer;
+    // subscription of startEventDetection(...), which is called on every dispatch, even with empty list (e.g. on poll timeout)
+    private volatile EventSubscription periodicSubscription;
+
+    private volatile boolean stopWatching = false;
+    private volatile Thread runner;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Constructs the EventWatcher
+     *
+     * @param deviceName      gpio device name
+     * @param pin             pin gpio number
+     * @param fd              file descriptor of the line request
+     * @param lineFlags       flags of the line request with edge detection enabled
+     * @param rateLimiter     rate limiter of the pin events
+     * @param eventBufferSize event buffer size
+     * @param updatePeriod    update period, zero if events are processed by buffer size
+     */
+    EventWatcher(String deviceName, int pin, int fd, long lineFlags, EventRateLimiter rateLimiter, int eventBufferSize, Duration updatePeriod) {
+        this.deviceName = deviceName;
+        this.pin = pin;
+        this.fd = fd;
+        this.lineFlags = lineFlags;
+        this.rateLimiter = rateLimiter;
+        this.eventBufferSize = eventBufferSize;
+        this.updatePeriod = updatePeriod;
+        this.eventBuffer = new EventBuffer(Math.max(eventBufferSize, KERNEL_EVENT_BUFFER_SIZE));
+        this.busyPoll = null;
+        this.latencyRecorder = null;
+    }
+
+    /**
+     * Constructs the EventWatcher in low latency mode. Every read batch is delivered immediately.
+     *
+     * @param deviceName      gpio device name
+     * @param pin             pin gpio number
+     * @param fd              file descriptor of the line request
+     * @param lineFlags       flags of the line request with edge detection enabled
+     * @param rateLimiter     rate limiter of the pin events
+     * @param busyPoll        options of low latency mode
+     * @param latencyRecorder recorder of edge-to-callback latency
+     */
+    EventWatcher(String deviceName, int pin, int fd, long lineFlags, EventRateLimiter rateLimiter, BusyPollOptions busyPoll,
+                 LatencyRecorder latencyRecorder) {
+        this.deviceName = deviceName;
+        this.pin = pin;
+        this.fd = fd;
+        this.lineFlags = lineFlags;
+        this.rateLimiter = rateLimiter;
+        this.eventBufferSize = 1;
+        this.updatePeriod = Duration.ZERO;
+        this.eventBuffer = new EventBuffer(KERNEL_EVENT_BUFFER_SIZE);
+        this.busyPoll = busyPoll;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * Adds subscription to the watcher.
+     *
+     * @param subscription subscription to be added
+     */
+    void subscribe(EventSubscription subscription) {
+        subscriptions.add(subscription);
+    }
+
+    /**
+     * Adds subscription, which is called on every dispatch of the watcher, even if there are no events for it.
+     * Keeps the behaviour of {@code startEventDetection(...)}, where event processor is called periodically on poll timeout or update period.
+     *
+     * @param subscription subscription to be added
+     */
+    void subscribePeriodic(EventSubscription subscription) {
+        this.periodicSubscription = subscription;
+        subscriptions.add(subscription);
+    }
+
+    /**
+     * Removes subscription from the watcher.
+     *
+     * @param subscription subscription to be removed
+     * @return true if subscription was removed
+     */
+    boolean unsubscribe(EventSubscription subscription) {
+        if (subscription == periodicSubscription) {
+            this.periodicSubscription = null;
+        }
+        return subscriptions.remove(subscription);
+    }
+
+    /**
+     * Adds event sink subscription to the watcher.
+     *
+     * @param subscription subscription to be added
+     */
+    void subscribe(EventSinkSubscription subscription) {
+        sinks.add(new SinkTarget(subscription, new EventBuffer(KERNEL_EVENT_BUFFER_SIZE)));
+    }
+
+    /**
+     * Removes event sink subscription from the watcher.
+     *
+     * @param subscription subscription to be removed
+     * @return true if subscription was removed
+     */
+    boolean unsubscribe(EventSinkSubscription subscription) {
+        return sinks.removeIf(target -> target.subscription() == subscription);
+    }
+
+    /**
+     * Checks if the watcher has any subscriptions left.
+     *
+     * @return true if there is at least one subscription
+     */
+    boolean hasSubscriptions() {
+        return !subscriptions.isEmpty() || !sinks.isEmpty();
+    }
+
+    @Override
+    public void run() {
+        this.runner = Thread.currentThread();
+        try {
+            if (busyPoll != null) {
+                runBusyPolling();
+            } else {
+                runPolling();
+            }
+            if (rateLimiter.isSuspended()) {
+                // do not leave the line without edge detection, next watcher will need it
+                try {
+                    resume();
+                } catch (NativeMemoryException e) {
+                    logger.error("{}-{} - cannot resume edge detection on stop.", deviceName, pin, e);
+                }
+            }
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Watches the events with blocking linux poll.
+     */
+    private void runPolling() {
+        var pollFd = new PollingData(fd, (short) (PollFlag.POLLIN | PollFlag.POLLERR), (short) 0);
+        var timestamp = Instant.now();
+        try (var offHeap = Arena.ofConfined()) {
+            var buffer = offHeap.allocate(KERNEL_EVENT_BUFFER_SIZE * EVENT_SIZE);
+            while (!stopWatching) {
+                var now = System.nanoTime();
+                if (rateLimiter.shouldResume(now)) {
+                    resume();
+                }
+                // timeout is set to 25s for default, while suspended we wake up at the end of cooldown
+                var timeout = updatePeriod.equals(Duration.ZERO) ? 25_000 : (int) updatePeriod.toMillis();
+                if (rateLimiter.isSuspended()) {
+                    timeout = (int) Math.min(timeout, Math.max(1, TimeUnit.NANOSECONDS.toMillis(rateLimiter.cooldownLeft(now))));
+                }
+                var retPollFd = poll(pollFd, timeout);
+                if (retPollFd == null) {
+                    // timeout happened, process all left events, update timestamp
+                    dispatch();
+                    rateLimiter.reportCoalesced(System.nanoTime(), true);
+                    timestamp = Instant.now();
+                    continue;
+                }
+                if ((retPollFd.revents() & (PollFlag.POLLIN)) != 0) {
+                    var read = FILE.read(fd, buffer.address(), buffer.byteSize());
+                    collect(buffer, read, System.nanoTime());
+                    if (eventBuffer.size() >= eventBufferSize && updatePeriod.equals(Duration.ZERO)) {
+                        // process by number of events
+                        dispatch();
+                    } else if (timestamp.plus(updatePeriod).isBefore(Instant.now())) {
+                        // process by update period
+                        dispatch();
+                        timestamp = Instant.now();
+                    }
+                }
+                if ((retPollFd.revents() & (PollFlag.POLLERR)) != 0) {
+                    // internal error on polling
+                    logger.error("{}-{} - internal error during polling", deviceName, pin);
+                    stopWatching();
+                }
+            }
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Watches the events by spinning on non-blocking read of the line.
+     * When there are no events during idle spin budget, falls back to blocking poll until the next event.
+     */
+    private void runBusyPolling() {
+        var pollFd = new PollingData(fd, (short) (PollFlag.POLLIN | PollFlag.POLLERR), (short) 0);
+        var spinBudget = busyPoll.idleSpinBudget().toNanos();
+        try (var offHeap = Arena.ofConfined()) {
+            var buffer = offHeap.allocate(KERNEL_EVENT_BUFFER_SIZE * EVENT_SIZE);
+            if (busyPoll.cpu() != BusyPollOptions.NO_AFFINITY) {
+                // pid 0 is the calling thread, cpu set is a bit mask of 64 cores
+                SCHEDULER.setAffinity(0, Long.BYTES, 1L << busyPoll.cpu());
+                logger.debug("{}-{} - low latency event watcher is pinned to CPU {}.", deviceName, pin, busyPoll.cpu());
+            }
+            var fileFlags = FILE.fcntl(fd, FileFlag.F_GETFL, 0);
+            FILE.fcntl(fd, FileFlag.F_SETFL, fileFlags | FileFlag.O_NONBLOCK);
+            var idleSince = System.nanoTime();
+            var polled = false;
+            while (!stopWatching) {
+                var now = System.nanoTime();
+                if (rateLimiter.shouldResume(now)) {
+                    resume();
+                }
+                // -1 with EAGAIN is expected when there are no events, so errno is not checked here
+                var read = FILE.readNonBlocking(fd, buffer.address(), buffer.byteSize());
+                if (read <= 0) {
+                    if (now - idleSince < spinBudget) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    latencyRecorder.blockingPoll(now - idleSince);
+                    var timeout = 25_000;
+                    if (rateLimiter.isSuspended()) {
+                        timeout = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(rateLimiter.cooldownLeft(now)));
+                    }
+                    var retPollFd = poll(pollFd, timeout);
+                    if (retPollFd != null && (retPollFd.revents() & (PollFlag.POLLERR)) != 0) {
+                        // internal error on polling
+                        logger.error("{}-{} - internal error during polling", deviceName, pin);
+                        stopWatching();
+                    }
+                    rateLimiter.reportCoalesced(System.nanoTime(), retPollFd == null);
+                    idleSince = System.nanoTime();
+                    polled = true;
+                    continue;
+                }
+                now = System.nanoTime();
+                if (!polled) {
+                    latencyRecorder.spinRead();
+                }
+                polled = false;
+                collect(buffer, read, now);
+                var handOver = System.nanoTime();
+                var timestamps = eventBuffer.timestamps();
+                for (int i = 0; i < eventBuffer.size(); i++) {
+                    latencyRecorder.record(handOver - timestamps[i]);
+                }
+                dispatch();
+                idleSince = System.nanoTime();
+            }
+            FILE.fcntl(fd, FileFlag.F_SETFL, fileFlags);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Polls the line in short slices until the event, timeout or stop request.
+     *
+     * @param pollFd  polling data of the line
+     * @param timeout timeout in milliseconds
+     * @return polling data with returned events or null if timeout happened or watcher is stopped
+     * @throws NativeMemoryException if poll call failed
+     */
+    private PollingData poll(PollingData pollFd, int timeout) throws NativeMemoryException {
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (!stopWatching) {
+            var left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (left <= 0) {
+                return null;
+            }
+            // number of file descriptors is set to 1, since we are polling only one pin
+            var retPollFd = POLL.poll(pollFd, 1, (int) Math.min(left, STOP_CHECK_INTERVAL_MS));
+            if (retPollFd != null) {
+                return retPollFd;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes events read from kernel, applies the rate limit and adds events to be delivered into event buffer.
+     *
+     * @param buffer native buffer with events
+     * @param read   number of bytes read into buffer
+     * @param now    current time in nanoseconds
+     * @throws NativeMemoryException if line cannot be reconfigured
+     */
+    private void collect(MemorySegment buffer, long read, long now) throws NativeMemoryException {
+        for (long offset = 0; offset + EVENT_SIZE <= read; offset += EVENT_SIZE) {
+            var id = buffer.get(ValueLayout.JAVA_INT_UNALIGNED, offset + ID_OFFSET);
+            var decision = rateLimiter.acquire(id, now);
+            if (decision == EventRateLimiter.SUSPEND) {
+                suspend(now);
+            } else if (decision == EventRateLimiter.DELIVER) {
+                eventBuffer.add(buffer.get(ValueLayout.JAVA_LONG_UNALIGNED, offset + TIMESTAMP_OFFSET), id,
+                        buffer.get(ValueLayout.JAVA_INT_UNALIGNED, offset + LINE_SEQNO_OFFSET));
+            }
+        }
+        rateLimiter.reportCoalesced(now, false);
+    }
+
+    /**
+     * Disables edge detection on the line for the cooldown period of rate limit.
+     *
+     * @param now current time in nanoseconds
+     * @throws NativeMemoryException if line cannot be reconfigured
+     */
+    private void suspend(long now) throws NativeMemoryException {
+        logger.warn("{}-{} - event rate limit exceeded, suspending edge detection.", deviceName, pin);
+        var lineConfig = new LineConfig(lineFlags & ~EDGE_FLAGS, 0, new int[]{}, new LineConfigAttribute[]{});
+        IOCTL.call(fd, Command.getGpioV2SetConfigIoctl(), lineConfig);
+        rateLimiter.suspended(now);
+    }
+
+    /**
+     * Enables edge detection on the line after the cooldown.
+     *
+     * @throws NativeMemoryException if line cannot be reconfigured
+     */
+    private void resume() throws NativeMemoryException {
+        logger.info("{}-{} - cooldown is over, resuming edge detection.", deviceName, pin);
+        var lineConfig = new LineConfig(lineFlags | EDGE_FLAGS, 0, new int[]{}, new LineConfigAttribute[]{});
+        IOCTL.call(fd, Command.getGpioV2SetConfigIoctl(), lineConfig);
+        rateLimiter.resumed();
+    }
+
+    /**
+     * Fans out collected events to all subscriptions and clears the event buffer.
+     * Event sinks receive primitive arrays on the polling thread without allocation.
+     * For list subscriptions events are converted into immutable batch once, every subscription receives either the batch itself or the filtered copy of it.
+     * Periodic subscription of {@code startEventDetection(...)} is called even with empty list.
+     */
+    private void dispatch() {
+        if (eventBuffer.isEmpty()) {
+            var periodic = periodicSubscription;
+            if (periodic != null) {
+                deliver(periodic, List.of());
+            }
+            return;
+        }
+        var eventMask = eventBuffer.eventMask();
+        for (SinkTarget target : sinks) {
+            var subscription = target.subscription();
+            var events = eventBuffer;
+            if (!subscription.acceptsAll(eventMask)) {
+                eventBuffer.filter(subscription.pinEvent().getValue(), target.buffer());
+                events = target.buffer();
+            }
+            if (events.isEmpty()) {
+                continue;
+            }
+            rateLimiter.delivered(events.size());
+            try {
+                subscription.eventSink().onEvents(events.timestamps(), events.events(), events.sequenceNumbers(), events.size());
+            } catch (RuntimeException e) {
+                // one failing subscription must not break the delivery to others
+                logger.error("{}-{} - cannot deliver events to sink {}.", deviceName, pin, subscription, e);
+            }
+        }
+        if (!subscriptions.isEmpty()) {
+            var batch = eventBuffer.toDetectedEvents(eventMask);
+            for (EventSubscription subscription : subscriptions) {
+                var events = subscription.acceptsAll(eventMask) ? batch
+                        : batch.stream().filter(event -> subscription.accepts(event.pinEvent())).toList();
+                if (events.isEmpty() && subscription != periodicSubscription) {
+                    continue;
+                }
+                rateLimiter.delivered(events.size());
+                deliver(subscription, events);
+            }
+        }
+        eventBuffer.clear();
+    }
+
+    /**
+     * Delivers events to the subscription on its executor.
+     *
+     * @param subscription subscription to deliver events to
+     * @param events       events to be delivered
+     */
+    private void deliver(EventSubscription subscription, List<DetectedEvent> events) {
+        try {
+            subscription.executor().execute(() -> subscription.eventProcessor().process(events));
+        } catch (RuntimeException e) {
+            // one failing subscription must not break the delivery to others
+            logger.error("{}-{} - cannot deliver events to subscription {}.", deviceName, pin, subscription, e);
+        }
+    }
+
+    /**
+     * Stops event watcher, end the task.
+     */
+    void stopWatching() {
+        this.stopWatching = true;
+    }
+
+    /**
+     * Stops event watcher and waits until its thread does not use the line anymore.
+     * Called from the watcher thread itself (e.g. unsubscribe in callback) it only stops, since the loop ends right after the callback.
+     */
+    void stopAndAwait() {
+        stopWatching();
+        if (Thread.currentThread() == runner) {
+            return;
+        }
+        try {
+            if (!finished.await(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.warn("{}-{} - event watcher has not stopped in {}ms.", deviceName, pin, STOP_TIMEOUT_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks if the event watcher is running.
+     *
+     * @return true if event watcher is running
+     */
+    boolean isRunning() {
+        return !this.stopWatching;
+    }
+
+    /**
+     * Event sink subscription with its own buffer for filtered events.
+     *
+     * @param subscription event sink subscription
+     * @param buffer       buffer for events filtered by subscription
+     */
+    private record SinkTarget(EventSinkSubscription subscription, EventBuffer buffer) {
+    }
+
+    @Override
+    public String toString() {
+        return "EventWatcher{" +
+                "fd=" + fd +
+                ", subscriptions=" + subscriptions.size() +
+                ", sinks=" + sinks.size() +
+                ", eventBufferSize=" + eventBufferSize +
+                ", updatePeriod=" + updatePeriod +
+                ", busyPoll=" + busyPoll +
+                ", stopWatching=" + stopWatching +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+package org.digitalsmile.gpio.pin;
+
+import org.digitalsmile.gpio.pin.event.LatencyStatistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Internal recorder of edge-to-callback latency. Written only from the watcher thread, can be read from any thread.
+ */
+final class LatencyRecorder {
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxLatency = new AtomicLong();
+    private final AtomicLong spinReads = new AtomicLong();
+    private final AtomicLong blockingPolls = new AtomicLong();
+    private final AtomicLong idleSpinNanos = new AtomicLong();
+
+    /**
+     * Records the latency of single event.
+     *
+     * @param latencyNs latency in nanoseconds
+     */
+    void record(long latencyNs) {
+        events.lazySet(events.get() + 1);
+        totalLatency.lazySet(totalLatency.get() + latencyNs);
+        if (latencyNs < minLatency.get()) {
+            minLatency.lazySet(latencyNs);
+        }
+        if (latencyNs > maxLatency.get()) {
+            maxLatency.lazySet(latencyNs);
+        }
+    }
+
+    /**
+     * Records the batch of events caught while spinning.
+     */
+    void spinRead() {
+        spinReads.lazySet(spinReads.get() + 1);
+    }
+
+    /**
+     * Records the fallback to blocking poll after spending the idle spin budget.
+     *
+     * @param spinNanos time spent spinning without events
+     */
+    void blockingPoll(long spinNanos) {
+        blockingPolls.lazySet(blockingPolls.get() + 1);
+        idleSpinNanos.lazySet(idleSpinNanos.get() + spinNanos);
+    }
+
+    /**
+     * Gets the snapshot of latency statistics.
+     *
+     * @return latency statistics snapshot
+     */
+    LatencyStatistics getStatistics() {
+        var count = events.get();
+        return new LatencyStatistics(count, count == 0 ? 0 : minLatency.get(), maxLatency.get(),
+                count == 0 ? 0 : (double) totalLatency.get() / count, spinReads.get(), blockingPolls.get(), idleSpinNanos.get());
+    }
+}
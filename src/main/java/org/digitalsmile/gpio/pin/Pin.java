@@ -8,28 +8,29 @@ import org.digitalsmile.gpio.core.file.FileFlag;
 import org.digitalsmile.gpio.core.ioctl.Command;
 import org.digitalsmile.gpio.core.ioctl.Ioctl;
 import org.digitalsmile.gpio.core.ioctl.IoctlNative;
-import org.digitalsmile.gpio.core.poll.Poll;
-import org.digitalsmile.gpio.core.poll.PollFlag;
-import org.digitalsmile.gpio.core.poll.PollNative;
-import org.digitalsmile.gpio.core.poll.PollingData;
 import org.digitalsmile.gpio.pin.attributes.PinDirection;
 import org.digitalsmile.gpio.pin.attributes.PinEvent;
 import org.digitalsmile.gpio.pin.attributes.PinFlag;
 import org.digitalsmile.gpio.pin.attributes.PinState;
-import org.digitalsmile.gpio.pin.event.DetectedEvent;
+import org.digitalsmile.gpio.pin.event.BusyPollOptions;
+import org.digitalsmile.gpio.pin.event.EventMetrics;
+import org.digitalsmile.gpio.pin.event.EventRateLimit;
+import org.digitalsmile.gpio.pin.event.EventRateLimitListener;
+import org.digitalsmile.gpio.pin.event.EventSinkSubscription;
+import org.digitalsmile.gpio.pin.event.EventSubscription;
+import org.digitalsmile.gpio.pin.event.LatencyStatistics;
 import org.digitalsmile.gpio.pin.event.PinEventProcessing;
+import org.digitalsmile.gpio.pin.event.PinEventSink;
 import org.digitalsmile.gpio.pin.structs.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.foreign.MemorySegment;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -41,18 +42,20 @@ public final class Pin implements AutoCloseable {
     private static final StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
     private static final Ioctl IOCTL = new IoctlNative();
     private static final FileDescriptor FILE = new FileDescriptorNative();
-    private static final Poll POLL = new PollNative();
 
     private final String deviceName;
     private final int pin;
     private final LineInfo lineInfo;
     private final int fd;
+    private final long lineFlags;
     private final PinDirection pinDirection;
 
     private static final ThreadFactory factory = Thread.ofVirtual().name("pin-event-detection-", 0).factory();
     // executor services for event watcher
     private static final ExecutorService eventTaskProcessor = Executors.newThreadPerTaskExecutor(factory);
     private EventWatcher watcher;
+    private final EventRateLimiter rateLimiter = new EventRateLimiter();
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
 
 
     private PinState pinState;
@@ -86,7 +89,8 @@ public final class Pin implements AutoCloseable {
         logger.debug("{}-{} - GPIO Pin line info: {}", deviceName, gpioPin, lineInfo);
         // if the direction is input we automatically add event detection to the pin for future use
         var flags = pinDirection.equals(PinDirection.INPUT) ? (PinFlag.EDGE_FALLING.getValue() | PinFlag.EDGE_RISING.getValue()) : 0;
-        var lineConfig = new LineConfig(pinDirection.getMode() | flags, 0, new int[]{}, new LineConfigAttribute[]{});
+        this.lineFlags = pinDirection.getMode() | flags;
+        var lineConfig = new LineConfig(lineFlags, 0, new int[]{}, new LineConfigAttribute[]{});
         var lineRequest = new LineRequest(new int[]{pin}, "org.digitalsmile.gpio".getBytes(), lineConfig, 0, 0, new int[]{}, 0);
         var result = IOCTL.call(fd, Command.getGpioV2GetLineIoctl(), lineRequest);
         this.fd = result.fd();
@@ -139,6 +143,7 @@ public final class Pin implements AutoCloseable {
     @Override
     public void close() throws NativeMemoryException {
         logger.debug("{}-{} - closing GPIO Pin.", deviceName, pin);
+        stopEventDetection();
         FILE.close(fd);
         this.watcher = null;
         this.closed = true;
@@ -221,14 +226,15 @@ public final class Pin implements AutoCloseable {
      * @param eventBufferSize size of event buffer to be processed
      * @return future to operate the task
      */
-    public Future<?> startEventDetection(PinEvent pinEvent, PinEventProcessing eventProcessor, int eventBufferSize) {
-        if (watcher.isRunning()) {
-            logger.error("{}-{} - cannot start event detection, the watcher thread is already running.", deviceName, pin);
+    public synchronized Future<?> startEventDetection(PinEvent pinEvent, PinEventProcessing eventProcessor, int eventBufferSize) {
+        if (isWatching()) {
+            logger.error("{}-{} - cannot start event detection, the watcher thread is already running. Use subscribe(...) to add more listeners.", deviceName, pin);
             return null;
         }
         logger.debug("{}-{} - adding event {} detection with buffer size {}.", deviceName, pin, pinEvent, eventBufferSize);
-        this.watcher = new EventWatcher(fd, pinEvent, eventProcessor, eventBufferSize);
-        return eventTaskProcessor.submit(watcher);
+        var eventWatcher = new EventWatcher(deviceName, pin, fd, lineFlags, rateLimiter, eventBufferSize, Duration.ZERO);
+        eventWatcher.subscribePeriodic(new EventSubscription(pinEvent, eventProcessor, Runnable::run));
+        return startWatcher(eventWatcher);
     }
 
     /**
@@ -242,161 +248,241 @@ public final class Pin implements AutoCloseable {
      * @param updatePeriod   update period
      * @return future to operate the task
      */
-    public Future<?> startEventDetection(PinEvent pinEvent, PinEventProcessing eventProcessor, Duration updatePeriod) {
-        if (watcher.isRunning()) {
-            logger.error("{}-{} - cannot start event detection, the watcher thread is already running.", deviceName, pin);
+    public synchronized Future<?> startEventDetection(PinEvent pinEvent, PinEventProcessing eventProcessor, Duration updatePeriod) {
+        if (isWatching()) {
+            logger.error("{}-{} - cannot start event detection, the watcher thread is already running. Use subscribe(...) to add more listeners.", deviceName, pin);
             return null;
         }
         logger.debug("{}-{} - adding event {} detection with pulse delay {}.", deviceName, pin, pinEvent, updatePeriod);
-        this.watcher = new EventWatcher(fd, pinEvent, eventProcessor, updatePeriod);
-        return eventTaskProcessor.submit(watcher);
+        var eventWatcher = new EventWatcher(deviceName, pin, fd, lineFlags, rateLimiter, 1, updatePeriod);
+        eventWatcher.subscribePeriodic(new EventSubscription(pinEvent, eventProcessor, Runnable::run));
+        return startWatcher(eventWatcher);
     }
 
     /**
-     * Stops event detection on pin.
+     * Adds event detection listener in low latency mode. Events are read by spinning on a dedicated platform thread
+     * (optionally pinned to isolated CPU core), which falls back to blocking poll after idle spin budget.
+     * Every read batch is delivered immediately, use {@link #getLatencyStatistics()} to measure the CPU-versus-latency trade-off.
+     * WARNING: the callback is called on the spinning thread, processing must be as fast as possible.
+     *
+     * @param pinEvent       the event to detect
+     * @param eventProcessor event processor callback
+     * @param busyPoll       options of low latency mode
+     * @return future to operate the task
      */
-    public void stopEventDetection() {
-        this.watcher.stopWatching();
+    public synchronized Future<?> startEventDetection(PinEvent pinEvent, PinEventProcessing eventProcessor, BusyPollOptions busyPoll) {
+        if (isWatching()) {
+            logger.error("{}-{} - cannot start event detection, the watcher thread is already running. Use subscribe(...) to add more listeners.", deviceName, pin);
+            return null;
+        }
+        checkClosed();
+        logger.debug("{}-{} - adding event {} detection in low latency mode {}.", deviceName, pin, pinEvent, busyPoll);
+        var eventWatcher = new EventWatcher(deviceName, pin, fd, lineFlags, rateLimiter, busyPoll, latencyRecorder);
+        eventWatcher.subscribe(new EventSubscription(pinEvent, eventProcessor, Runnable::run));
+        awaitStoppedWatcher();
+        this.watcher = eventWatcher;
+        var task = new FutureTask<>(eventWatcher, null);
+        Thread.ofPlatform().name("pin-busy-poll-" + pin).daemon(true).start(task);
+        return task;
     }
 
-    @Override
-    public String toString() {
-        return "GPIOPin{" +
-                "deviceName='" + deviceName + '\'' +
-                ", pin=" + pin +
-                ", state=" + pinState +
-                ", direction=" + pinDirection +
-                ", closed=" + closed +
-                '}';
+    /**
+     * Gets edge-to-callback latency statistics of low latency event detection mode.
+     *
+     * @return snapshot of latency statistics
+     */
+    public LatencyStatistics getLatencyStatistics() {
+        return latencyRecorder.getStatistics();
     }
 
     /**
-     * Internal class for watching the event on GPIO Pin.
+     * Subscribes to the events of the pin. Callback is called on the polling thread.
+     * If event detection is not started yet, it will be started with the buffer size of 1.
+     * WARNING: since the caller of this callback is heavily tight with linux poll, it is recommended to do processing as fast as possible in implementation part.
+     *
+     * @param pinEvent       the event to detect
+     * @param eventProcessor event processor callback
+     * @return subscription, that can be used to unsubscribe
      */
-    private static class EventWatcher implements Runnable {
-        private static final Logger logger = LoggerFactory.getLogger(EventWatcher.class);
-
-        private final int fd;
-        private final PinEvent pinEvent;
-        private final PinEventProcessing eventProcessor;
-        private final int eventBufferSize;
-        private final Duration updatePeriod;
-
-        private boolean stopWatching = false;
-
-        /**
-         * Constructs the EventWatcher
-         *
-         * @param pinEvent        event
-         * @param eventProcessor  event processor
-         * @param eventBufferSize event buffer size
-         */
-        EventWatcher(int fd, PinEvent pinEvent, PinEventProcessing eventProcessor, int eventBufferSize) {
-            this.fd = fd;
-            this.pinEvent = pinEvent;
-            this.eventProcessor = eventProcessor;
-            this.eventBufferSize = eventBufferSize;
-            this.updatePeriod = Duration.ZERO;
+    public EventSubscription subscribe(PinEvent pinEvent, PinEventProcessing eventProcessor) {
+        return subscribe(pinEvent, eventProcessor, Runnable::run);
+    }
+
+    /**
+     * Subscribes to the events of the pin. Callback is called on the given executor, so slow subscribers do not block the polling thread and each other.
+     * All subscriptions share single kernel read loop, detected events are delivered without copying per subscriber.
+     * If event detection is not started yet, it will be started with the buffer size of 1.
+     *
+     * @param pinEvent       the event to detect
+     * @param eventProcessor event processor callback
+     * @param executor       executor to deliver events on
+     * @return subscription, that can be used to unsubscribe
+     */
+    public synchronized EventSubscription subscribe(PinEvent pinEvent, PinEventProcessing eventProcessor, Executor executor) {
+        checkClosed();
+        var subscription = new EventSubscription(pinEvent, eventProcessor, executor);
+        if (isWatching()) {
+            logger.debug("{}-{} - adding subscription for event {}.", deviceName, pin, pinEvent);
+            watcher.subscribe(subscription);
+        } else {
+            logger.debug("{}-{} - adding subscription for event {} and starting event detection.", deviceName, pin, pinEvent);
+            startWatcher(new EventWatcher(deviceName, pin, fd, lineFlags, rateLimiter, 1, Duration.ZERO), subscription);
+        }
+        return subscription;
+    }
+
+    /**
+     * Subscribes allocation-free event sink to the events of the pin. Sink is called on the polling thread with primitive arrays,
+     * that are reused between batches, so high-rate consumers can process events without any heap allocation.
+     * If event detection is not started yet, it will be started with the buffer size of 1.
+     *
+     * @param pinEvent  the event to detect
+     * @param eventSink event sink callback
+     * @return subscription, that can be used to unsubscribe
+     */
+    public synchronized EventSinkSubscription subscribe(PinEvent pinEvent, PinEventSink eventSink) {
+        checkClosed();
+        var subscription = new EventSinkSubscription(pinEvent, eventSink);
+        if (isWatching()) {
+            logger.debug("{}-{} - adding event sink for event {}.", deviceName, pin, pinEvent);
+            watcher.subscribe(subscription);
+        } else {
+            logger.debug("{}-{} - adding event sink for event {} and starting event detection.", deviceName, pin, pinEvent);
+            var eventWatcher = new EventWatcher(deviceName, pin, fd, lineFlags, rateLimiter, 1, Duration.ZERO);
+            eventWatcher.subscribe(subscription);
+            startWatcher(eventWatcher);
         }
+        return subscription;
+    }
 
-        /**
-         * Constructs the EventWatcher
-         *
-         * @param pinEvent       event
-         * @param eventProcessor event processor
-         * @param updatePeriod   update period
-         */
-        EventWatcher(int fd, PinEvent pinEvent, PinEventProcessing eventProcessor, Duration updatePeriod) {
-            this.fd = fd;
-            this.pinEvent = pinEvent;
-            this.eventProcessor = eventProcessor;
-            this.eventBufferSize = 1;
-            this.updatePeriod = updatePeriod;
+    /**
+     * Removes the subscription from the pin. Event detection is stopped, when the last subscription is removed.
+     *
+     * @param subscription subscription to be removed
+     */
+    public synchronized void unsubscribe(EventSubscription subscription) {
+        if (watcher == null || !watcher.unsubscribe(subscription)) {
+            logger.warn("{}-{} - subscription {} is not found.", deviceName, pin, subscription);
+            return;
         }
+        logger.debug("{}-{} - subscription for event {} removed.", deviceName, pin, subscription.pinEvent());
+        stopIfNoSubscriptions();
+    }
 
-        @Override
-        public void run() {
-            var pollFd = new PollingData(fd, (short) (PollFlag.POLLIN | PollFlag.POLLERR), (short) 0);
-            var eventSize = (int) LineEvent.LAYOUT.byteSize();
-            var timestamp = Instant.now();
-            List<DetectedEvent> eventList = new ArrayList<>();
-            while (!stopWatching) {
-                try {
-                    // number of file descriptors is set to 1, since we are polling only one pin
-                    // timeout is set to 25s for default
-                    var retPollFd = POLL.poll(pollFd, 1, updatePeriod.equals(Duration.ZERO) ? 25_000 : (int) updatePeriod.toMillis());
-                    if (retPollFd == null) {
-                        // timeout happened, process all left events, update timestamp
-                        eventProcessor.process(eventList);
-                        eventList.clear();
-                        timestamp = Instant.now();
-                        continue;
-                    }
-                    if ((retPollFd.revents() & (PollFlag.POLLIN)) != 0) {
-                        // default minimum buffer size is 16 line events
-                        // see https://elixir.bootlin.com/linux/latest/source/include/uapi/linux/gpio.h#L185
-                        var buf = FILE.read(fd, new byte[16 * eventSize], 16 * eventSize);
-                        var holder = new byte[eventSize];
-                        for (int i = 0; i < 16 * LineEvent.LAYOUT.byteSize(); i += eventSize) {
-                            // check if timestamp is 0, then there is no event present, we can skip
-                            if (buf[i] == 0) {
-                                continue;
-                            }
-                            System.arraycopy(buf, i, holder, 0, eventSize);
-                            var memoryBuffer = MemorySegment.ofArray(holder);
-                            var event = LineEvent.createEmpty().fromBytes(memoryBuffer);
-                            // process only interested events
-                            if ((event.id() & this.pinEvent.getValue()) != 0) {
-                                eventList.add(new DetectedEvent(event.timestampNs(), PinEvent.getByValue(event.id()), event.lineSeqno()));
-                            }
-                        }
-                        if (eventList.size() >= eventBufferSize && updatePeriod.equals(Duration.ZERO)) {
-                            // process by number of events
-                            eventProcessor.process(eventList);
-                            eventList.clear();
-                        } else if (timestamp.plus(updatePeriod).isBefore(Instant.now())) {
-                            // process by update period
-                            eventProcessor.process(eventList);
-                            eventList.clear();
-                            timestamp = Instant.now();
-                        }
-                    }
-                    if ((retPollFd.revents() & (PollFlag.POLLERR)) != 0) {
-                        // internal error on polling
-                        logger.error("Internal error during polling");
-                        stopWatching();
-                    }
-                } catch (Throwable e) {
-                    throw new RuntimeException(e);
-                }
-            }
+    /**
+     * Removes the event sink subscription from the pin. Event detection is stopped, when the last subscription is removed.
+     *
+     * @param subscription subscription to be removed
+     */
+    public synchronized void unsubscribe(EventSinkSubscription subscription) {
+        if (watcher == null || !watcher.unsubscribe(subscription)) {
+            logger.warn("{}-{} - event sink {} is not found.", deviceName, pin, subscription);
+            return;
         }
+        logger.debug("{}-{} - event sink for event {} removed.", deviceName, pin, subscription.pinEvent());
+        stopIfNoSubscriptions();
+    }
 
-        /**
-         * Stops event watcher, end the task.
-         */
-        public void stopWatching() {
-            this.stopWatching = true;
+    /**
+     * Stops event detection if there are no subscriptions left.
+     */
+    private void stopIfNoSubscriptions() {
+        if (!watcher.hasSubscriptions()) {
+            logger.debug("{}-{} - no subscriptions left, stopping event detection.", deviceName, pin);
+            watcher.stopAndAwait();
         }
+    }
 
-        /**
-         * Checks if the event watcher is running.
-         *
-         * @return true if event watcher is running
-         */
-        public boolean isRunning() {
-            return !this.stopWatching;
+    /**
+     * Sets the event rate limit of the pin. When the pin exceeds its budget, events are coalesced into summary counts
+     * or edge detection is temporarily disabled, so one noisy line cannot starve the rest of the system.
+     * Every action taken is reported to the listener.
+     *
+     * @param rateLimit rate limit to be applied
+     * @param listener  listener of rate limit actions, can be null
+     */
+    public void setEventRateLimit(EventRateLimit rateLimit, EventRateLimitListener listener) {
+        logger.debug("{}-{} - setting event rate limit {}.", deviceName, pin, rateLimit);
+        rateLimiter.configure(rateLimit, listener);
+    }
+
+    /**
+     * Removes the event rate limit of the pin. If edge detection is suspended, it will be enabled again.
+     */
+    public void removeEventRateLimit() {
+        logger.debug("{}-{} - removing event rate limit.", deviceName, pin);
+        rateLimiter.configure(null, null);
+    }
+
+    /**
+     * Gets the event detection metrics of the pin.
+     *
+     * @return snapshot of event detection metrics
+     */
+    public EventMetrics getEventMetrics() {
+        return rateLimiter.getMetrics();
+    }
+
+    /**
+     * Stops event detection on pin and waits until the watcher thread stops using the line.
+     */
+    public synchronized void stopEventDetection() {
+        if (watcher != null) {
+            watcher.stopAndAwait();
         }
+    }
+
+    /**
+     * Starts the event watcher with initial subscription.
+     *
+     * @param eventWatcher event watcher to start
+     * @param subscription initial subscription
+     * @return future to operate the task
+     */
+    private Future<?> startWatcher(EventWatcher eventWatcher, EventSubscription subscription) {
+        eventWatcher.subscribe(subscription);
+        return startWatcher(eventWatcher);
+    }
 
-        @Override
-        public String toString() {
-            return "EventWatcher{" +
-                    "fd=" + fd +
-                    ", pinEvent=" + pinEvent +
-                    ", eventBufferSize=" + eventBufferSize +
-                    ", updatePeriod=" + updatePeriod +
-                    ", stopWatching=" + stopWatching +
-                    '}';
+    /**
+     * Starts the event watcher.
+     *
+     * @param eventWatcher event watcher to start
+     * @return future to operate the task
+     */
+    private Future<?> startWatcher(EventWatcher eventWatcher) {
+        checkClosed();
+        awaitStoppedWatcher();
+        this.watcher = eventWatcher;
+        return eventTaskProcessor.submit(eventWatcher);
+    }
+
+    /**
+     * Waits for the previous watcher to finish, so two watchers never read the same line.
+     */
+    private void awaitStoppedWatcher() {
+        if (watcher != null) {
+            watcher.stopAndAwait();
         }
     }
+
+    /**
+     * Checks if event watcher is running.
+     *
+     * @return true if event watcher is running
+     */
+    private boolean isWatching() {
+        return watcher != null && watcher.isRunning();
+    }
+
+    @Override
+    public String toString() {
+        return "GPIOPin{" +
+                "deviceName='" + deviceName + '\'' +
+                ", pin=" + pin +
+                ", state=" + pinState +
+                ", direction=" + pinDirection +
+                ", closed=" + closed +
+                '}';
+    }
 }
@@ -0,0 +1,270 @@
+package org.digitalsmile.gpio.pin;
+
+import io.github.digitalsmile.annotation.function.NativeMemoryException;
+import org.digitalsmile.gpio.GPIOBoard;
+import org.digitalsmile.gpio.core.file.FileDescriptor;
+import org.digitalsmile.gpio.core.file.FileDescriptorNative;
+import org.digitalsmile.gpio.core.file.FileFlag;
+import org.digitalsmile.gpio.core.ioctl.Command;
+import org.digitalsmile.gpio.core.ioctl.Ioctl;
+import org.digitalsmile.gpio.core.ioctl.IoctlNative;
+import org.digitalsmile.gpio.pin.attributes.PinDirection;
+import org.digitalsmile.gpio.pin.structs.LineConfig;
+import org.digitalsmile.gpio.pin.structs.LineConfigAttribute;
+import org.digitalsmile.gpio.pin.structs.LineRequest;
+import org.digitalsmile.gpio.pin.structs.LineValues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class for sampling levels of group of GPIO Pins at fixed rate. It uses native FFM calls (such as open and ioctl) to operate with hardware.
+ * Instance of PinSampler can only be created from {@link GPIOBoard} class, because we need to initialize GPIO device first and run some validations beforehand.
+ * <p>
+ * All pins are requested as one multi-line request, so every sample is a single GPIO_V2_LINE_GET_VALUES_IOCTL call.
+ * Samples are stored as packed bitsets into preallocated off-heap ring of longs, consumers read windows of samples without copying.
+ * If the sampling thread cannot keep up with the period, missed deadlines are counted and skipped.
+ */
+public final class PinSampler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PinSampler.class);
+    private static final StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final Ioctl IOCTL = new IoctlNative();
+    private static final FileDescriptor FILE = new FileDescriptorNative();
+
+    private final String deviceName;
+    private final int[] pins;
+    private final long periodNanos;
+    private final int capacity;
+    private final int lineFd;
+
+    private final Arena offHeap = Arena.ofShared();
+    private final MemorySegment lineValues;
+    private final MemorySegment samples;
+    private final MemorySegment timestamps;
+
+    private volatile long sampleCount;
+    private volatile long missedDeadlines;
+    private volatile long startedAt;
+    private volatile boolean running;
+    private Thread samplerThread;
+    private boolean closed = false;
+
+    /**
+     * Constructs PinSampler from gpio device name, pins, sampling period and capacity of the ring.
+     * Instance of PinSampler can only be created from {@link GPIOBoard} class, because we need to initialize GPIO device first and run some validations beforehand.
+     *
+     * @param deviceName gpio device name
+     * @param pins       pin gpio numbers, bit number of the sample corresponds to the index of pin in this array
+     * @param period     sampling period
+     * @param capacity   number of samples to be kept in the ring
+     * @throws NativeMemoryException if errors occurred during creating instance
+     */
+    public PinSampler(String deviceName, int[] pins, Duration period, int capacity) throws NativeMemoryException {
+        if (!walker.getCallerClass().equals(GPIOBoard.class)) {
+            throw new RuntimeException("Wrong call of constructor, PinSampler should be created by using GPIOBoard.ofPinSampler(...) methods.");
+        }
+        if (pins.length == 0 || pins.length > Long.SIZE) {
+            throw new IllegalArgumentException("Number of pins in the sampler must be from 1 to " + Long.SIZE + ".");
+        }
+        if (capacity <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Capacity and sampling period must be more than 0.");
+        }
+        this.deviceName = deviceName;
+        this.pins = pins.clone();
+        this.periodNanos = period.toNanos();
+        this.capacity = capacity;
+
+        logger.debug("{}-{} - setting up GPIO Pin sampler...", deviceName, Arrays.toString(pins));
+        var fd = FILE.open(deviceName, FileFlag.O_RDONLY | FileFlag.O_CLOEXEC);
+        var lineConfig = new LineConfig(PinDirection.INPUT.getMode(), 0, new int[]{}, new LineConfigAttribute[]{});
+        var lineRequest = new LineRequest(this.pins, "org.digitalsmile.gpio".getBytes(), lineConfig, pins.length, 0, new int[]{}, 0);
+        var result = IOCTL.call(fd, Command.getGpioV2GetLineIoctl(), lineRequest);
+        FILE.close(fd);
+        this.lineFd = result.fd();
+
+        // line values are requested by address of preallocated structure, so sampling does not allocate
+        this.lineValues = offHeap.allocate(LineValues.LAYOUT);
+        lineValues.set(ValueLayout.JAVA_LONG, Long.BYTES, pins.length == Long.SIZE ? -1L : (1L << pins.length) - 1);
+        this.samples = offHeap.allocate(ValueLayout.JAVA_LONG, capacity);
+        this.timestamps = offHeap.allocate(ValueLayout.JAVA_LONG, capacity);
+        logger.debug("{}-{} - GPIO Pin sampler configured: {}", deviceName, Arrays.toString(pins), result);
+    }
+
+    /**
+     * Starts sampling on the dedicated platform thread.
+     */
+    public synchronized void start() {
+        checkClosed();
+        if (running) {
+            logger.warn("{}-{} - sampler is already running.", deviceName, Arrays.toString(pins));
+            return;
+        }
+        this.running = true;
+        this.samplerThread = Thread.ofPlatform().name("pin-sampler-" + Arrays.toString(pins)).daemon(true).start(this::sample);
+    }
+
+    /**
+     * Stops sampling. Samples in the ring are kept and can be read after stop.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        this.running = false;
+        LockSupport.unpark(samplerThread);
+        try {
+            samplerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sampling loop with fixed rate. If the deadline is missed by more than one period, skipped samples are counted as missed deadlines.
+     */
+    private void sample() {
+        var start = System.nanoTime();
+        this.startedAt = start;
+        var deadline = start;
+        var count = sampleCount;
+        try {
+            while (running) {
+                var now = System.nanoTime();
+                if (now < deadline) {
+                    LockSupport.parkNanos(deadline - now);
+                    continue;
+                }
+                IOCTL.callByValue(lineFd, Command.getGpioV2GetValuesIoctl(), lineValues.address());
+                var index = count % capacity;
+                samples.setAtIndex(ValueLayout.JAVA_LONG, index, lineValues.get(ValueLayout.JAVA_LONG, 0));
+                timestamps.setAtIndex(ValueLayout.JAVA_LONG, index, now);
+                // publish the sample only after it is written into the ring
+                sampleCount = ++count;
+                deadline += periodNanos;
+                var late = System.nanoTime() - deadline;
+                if (late >= periodNanos) {
+                    var missed = late / periodNanos;
+                    missedDeadlines += missed;
+                    deadline += missed * periodNanos;
+                }
+            }
+        } catch (NativeMemoryException e) {
+            logger.error("{}-{} - error while sampling, stopping sampler.", deviceName, Arrays.toString(pins), e);
+            this.running = false;
+        }
+    }
+
+    /**
+     * Reads the window of samples starting from given sequence number without copying.
+     * Since the ring wraps around, processor can be called twice with contiguous parts of the window.
+     * If requested samples are already overwritten, the window starts from the oldest sample available.
+     * Consumer must keep up with the sampler, otherwise the data in window can be overwritten while processing.
+     *
+     * @param fromSample sequence number of the first sample to read
+     * @param maxCount   maximum number of samples to read
+     * @param processor  window processing callback
+     * @return sequence number of the next sample to read
+     */
+    public long readWindow(long fromSample, int maxCount, SampleWindowProcessing processor) {
+        checkClosed();
+        var count = sampleCount;
+        var first = Math.max(fromSample, count - capacity);
+        var size = (int) Math.min(maxCount, count - first);
+        if (size <= 0) {
+            return Math.max(fromSample, first);
+        }
+        var index = (int) (first % capacity);
+        var head = Math.min(size, capacity - index);
+        processor.process(samples.asSlice((long) index * Long.BYTES, (long) head * Long.BYTES),
+                timestamps.asSlice((long) index * Long.BYTES, (long) head * Long.BYTES), first, head);
+        if (head < size) {
+            var tail = size - head;
+            processor.process(samples.asSlice(0, (long) tail * Long.BYTES),
+                    timestamps.asSlice(0, (long) tail * Long.BYTES), first + head, tail);
+        }
+        return first + size;
+    }
+
+    /**
+     * Gets the total number of samples taken, which is also the sequence number of the next sample.
+     *
+     * @return total number of samples taken
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Gets the number of samples skipped, because sampling thread missed the deadline.
+     *
+     * @return number of missed deadlines
+     */
+    public long getMissedDeadlines() {
+        return missedDeadlines;
+    }
+
+    /**
+     * Gets the effective sampling rate since the start.
+     *
+     * @return samples per second
+     */
+    public double getEffectiveRate() {
+        var elapsed = System.nanoTime() - startedAt;
+        if (startedAt == 0 || elapsed <= 0) {
+            return 0;
+        }
+        return sampleCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    /**
+     * Gets the pin gpio numbers of the sampler group.
+     *
+     * @return pin gpio numbers
+     */
+    public int[] getPins() {
+        return pins.clone();
+    }
+
+    /**
+     * Closes the sampler. Object must be recreated if you have to use it after.
+     *
+     * @throws NativeMemoryException if errors occurred during closing file descriptor
+     */
+    @Override
+    public void close() throws NativeMemoryException {
+        logger.debug("{}-{} - closing GPIO Pin sampler.", deviceName, Arrays.toString(pins));
+        stop();
+        FILE.close(lineFd);
+        offHeap.close();
+        this.closed = true;
+    }
+
+    /**
+     * Checks if sampler is closed.
+     */
+    private void checkClosed() {
+        if (closed) {
+            throw new RuntimeException("Pin sampler " + Arrays.toString(pins) + " is closed");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PinSampler{" +
+                "deviceName='" + deviceName + '\'' +
+                ", pins=" + Arrays.toString(pins) +
+                ", periodNanos=" + periodNanos +
+                ", capacity=" + capacity +
+                ", sampleCount=" + sampleCount +
+                ", missedDeadlines=" + missedDeadlines +
+                ", closed=" + closed +
+                '}';
+    }
+}
@@ -0,0 +1,21 @@
+package org.digitalsmile.gpio.pin;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Callback to process the window of samples from {@link PinSampler}. Can be used as functional interface.
+ * Segments are views of the sampler ring without copying, they must not be used after the callback returns.
+ */
+@FunctionalInterface
+public interface SampleWindowProcessing {
+    /**
+     * Process contiguous window of samples.
+     * Every sample is a long, where bit number corresponds to the index of pin in the sampler group.
+     *
+     * @param samples     sample values ({@code count} longs)
+     * @param timestamps  sample timestamps in nanoseconds ({@code count} longs)
+     * @param firstSample sequence number of the first sample in the window
+     * @param count       number of samples in the window
+     */
+    void process(MemorySegment samples, MemorySegment timestamps, long firstSample, int count);
+}
@@ -2,8 +2,6 @@ package org.digitalsmile.gpio.pin.attributes;
 
 import org.digitalsmile.gpio.pin.event.PinEventProcessing;
 
-import java.util.Arrays;
-
 /**
  * Events, that you can subscribe and receive callback on the GPIO Pin state ({@link PinState}) change.
  *
@@ -50,6 +48,12 @@ public enum PinEvent {
      * @return pin event
      */
     public static PinEvent getByValue(int value) {
-        return Arrays.stream(values()).filter(v -> v.getValue() == value).findFirst().orElseThrow();
+        // called for every detected event, so avoid streams and copying of values()
+        return switch (value) {
+            case 1 -> RISING;
+            case 1 << 1 -> FALLING;
+            case (1) | (1 << 1) -> BOTH;
+            default -> throw new IllegalArgumentException("Unexpected value: " + value);
+        };
     }
 }
@@ -0,0 +1,43 @@
+package org.digitalsmile.gpio.pin.event;
+
+import java.time.Duration;
+
+/**
+ * Options of low latency event detection mode. In this mode the line is read in non-blocking manner on a dedicated platform thread,
+ * which spins until the next event. If there are no events during idle spin budget, the thread falls back to blocking poll until the next event.
+ * This trades one CPU core for edge-to-callback latency, see {@link LatencyStatistics} to measure the trade-off.
+ *
+ * @param idleSpinBudget time to spin without events before falling back to blocking poll
+ * @param cpu            CPU core to pin the thread to (preferably isolated), or {@link #NO_AFFINITY}
+ */
+public record BusyPollOptions(Duration idleSpinBudget, int cpu) {
+    /**
+     * Thread is not pinned to any CPU core.
+     */
+    public static final int NO_AFFINITY = -1;
+
+    /**
+     * Validates the options.
+     *
+     * @param idleSpinBudget time to spin without events before falling back to blocking poll
+     * @param cpu            CPU core to pin the thread to, or {@link #NO_AFFINITY}
+     */
+    public BusyPollOptions {
+        if (idleSpinBudget == null || idleSpinBudget.isNegative()) {
+            throw new IllegalArgumentException("Idle spin budget must not be negative.");
+        }
+        if (cpu < NO_AFFINITY || cpu >= Long.SIZE) {
+            throw new IllegalArgumentException("CPU core must be in range from 0 to " + (Long.SIZE - 1) + ".");
+        }
+    }
+
+    /**
+     * Creates options without CPU affinity.
+     *
+     * @param idleSpinBudget time to spin without events before falling back to blocking poll
+     * @return busy poll options
+     */
+    public static BusyPollOptions of(Duration idleSpinBudget) {
+        return new BusyPollOptions(idleSpinBudget, NO_AFFINITY);
+    }
+}
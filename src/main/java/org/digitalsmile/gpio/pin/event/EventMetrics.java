@@ -0,0 +1,13 @@
+package org.digitalsmile.gpio.pin.event;
+
+/**
+ * Snapshot of event detection metrics of GPIO Pin.
+ *
+ * @param detectedEvents  number of events read from kernel
+ * @param deliveredEvents number of events delivered to subscriptions
+ * @param coalescedEvents number of events coalesced or dropped because of rate limit
+ * @param suspensions     number of times edge detection was disabled because of rate limit
+ * @param resumptions     number of times edge detection was enabled again after the cooldown
+ */
+public record EventMetrics(long detectedEvents, long deliveredEvents, long coalescedEvents, long suspensions, long resumptions) {
+}
@@ -0,0 +1,55 @@
+package org.digitalsmile.gpio.pin.event;
+
+import java.time.Duration;
+
+/**
+ * Token bucket rate limit of events for single GPIO Pin. Protects the system from edge storms on floating inputs or EMI bursts.
+ * Bucket is refilled with given rate of events per second up to the burst size, every detected event takes one token.
+ *
+ * @param eventsPerSecond sustained rate of events to be delivered
+ * @param burstSize       maximum number of events to be delivered at once
+ * @param action          action to take when the bucket is empty
+ * @param cooldown        period for edge detection to stay disabled, used only with {@link EventRateLimitAction#SUSPEND}
+ */
+public record EventRateLimit(long eventsPerSecond, long burstSize, EventRateLimitAction action, Duration cooldown) {
+
+    /**
+     * Validates the parameters of rate limit.
+     *
+     * @param eventsPerSecond sustained rate of events to be delivered
+     * @param burstSize       maximum number of events to be delivered at once
+     * @param action          action to take when the bucket is empty
+     * @param cooldown        period for edge detection to stay disabled
+     */
+    public EventRateLimit {
+        if (eventsPerSecond <= 0 || burstSize <= 0) {
+            throw new IllegalArgumentException("Rate and burst size of event rate limit must be more than 0.");
+        }
+        if (action == EventRateLimitAction.SUSPEND && (cooldown == null || cooldown.isNegative() || cooldown.isZero())) {
+            throw new IllegalArgumentException("Cooldown period must be specified for suspending event rate limit.");
+        }
+    }
+
+    /**
+     * Creates rate limit, that coalesces events over the budget into summary counts.
+     *
+     * @param eventsPerSecond sustained rate of events to be delivered
+     * @param burstSize       maximum number of events to be delivered at once
+     * @return rate limit instance
+     */
+    public static EventRateLimit coalesce(long eventsPerSecond, long burstSize) {
+        return new EventRateLimit(eventsPerSecond, burstSize, EventRateLimitAction.COALESCE, Duration.ZERO);
+    }
+
+    /**
+     * Creates rate limit, that disables edge detection for cooldown period when the budget is exceeded.
+     *
+     * @param eventsPerSecond sustained rate of events to be delivered
+     * @param burstSize       maximum number of events to be delivered at once
+     * @param cooldown        period for edge detection to stay disabled
+     * @return rate limit instance
+     */
+    public static EventRateLimit suspend(long eventsPerSecond, long burstSize, Duration cooldown) {
+        return new EventRateLimit(eventsPerSecond, burstSize, EventRateLimitAction.SUSPEND, cooldown);
+    }
+}
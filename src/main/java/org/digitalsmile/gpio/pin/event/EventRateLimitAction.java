@@ -0,0 +1,17 @@
+package org.digitalsmile.gpio.pin.event;
+
+/**
+ * Action to be taken when GPIO Pin exceeds its event rate limit.
+ *
+ * @see EventRateLimit
+ */
+public enum EventRateLimitAction {
+    /**
+     * Events over the budget are not delivered, only the summary counts are reported to {@link EventRateLimitListener}.
+     */
+    COALESCE,
+    /**
+     * Edge detection is disabled by line reconfiguration and re-enabled after the cooldown period.
+     */
+    SUSPEND
+}
@@ -0,0 +1,40 @@
+package org.digitalsmile.gpio.pin.event;
+
+import java.time.Duration;
+
+/**
+ * Listener of actions taken by event rate limit of GPIO Pin. Can be used to export metrics of noisy lines.
+ * All methods are called on the polling thread, so implementation should be as fast as possible.
+ *
+ * @see EventRateLimit
+ */
+public interface EventRateLimitListener {
+
+    /**
+     * Called with summary counts of events, that were not delivered because of rate limit.
+     *
+     * @param risingEvents  number of coalesced rising edges
+     * @param fallingEvents number of coalesced falling edges
+     * @param metrics       current metrics of the pin
+     */
+    default void onCoalesced(long risingEvents, long fallingEvents, EventMetrics metrics) {
+    }
+
+    /**
+     * Called when edge detection of the pin is disabled because of rate limit.
+     *
+     * @param cooldown period for edge detection to stay disabled
+     * @param metrics  current metrics of the pin
+     */
+    default void onSuspended(Duration cooldown, EventMetrics metrics) {
+    }
+
+    /**
+     * Called when edge detection of the pin is enabled again after the cooldown.
+     *
+     * @param suppressedEvents number of events dropped while suspending
+     * @param metrics          current metrics of the pin
+     */
+    default void onResumed(long suppressedEvents, EventMetrics metrics) {
+    }
+}
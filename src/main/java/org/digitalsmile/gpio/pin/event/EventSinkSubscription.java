@@ -0,0 +1,23 @@
+package org.digitalsmile.gpio.pin.event;
+
+import org.digitalsmile.gpio.pin.attributes.PinEvent;
+
+/**
+ * Subscription of allocation-free event sink to the events of a single GPIO Pin.
+ * Sink is always called on the polling thread, since event arrays are reused between batches.
+ *
+ * @param pinEvent  the event to be delivered (rising, falling or both)
+ * @param eventSink event sink callback
+ */
+public record EventSinkSubscription(PinEvent pinEvent, PinEventSink eventSink) {
+
+    /**
+     * Checks if the subscription is interested in all events of given bit mask.
+     *
+     * @param eventMask bit mask of {@link PinEvent} values
+     * @return true if every event in the mask is accepted by subscription
+     */
+    public boolean acceptsAll(int eventMask) {
+        return (eventMask & ~pinEvent.getValue()) == 0;
+    }
+}
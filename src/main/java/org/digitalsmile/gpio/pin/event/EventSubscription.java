@@ -0,0 +1,36 @@
+package org.digitalsmile.gpio.pin.event;
+
+import org.digitalsmile.gpio.pin.attributes.PinEvent;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Subscription to the events of a single GPIO Pin. Many subscriptions can share one event detection loop,
+ * each of them receives only the events it is interested in on its own executor.
+ *
+ * @param pinEvent       the event to be delivered (rising, falling or both)
+ * @param eventProcessor event processor callback
+ * @param executor       executor to deliver events on, {@code Runnable::run} delivers on the polling thread
+ */
+public record EventSubscription(PinEvent pinEvent, PinEventProcessing eventProcessor, Executor executor) {
+
+    /**
+     * Checks if the subscription is interested in all events of given bit mask.
+     *
+     * @param eventMask bit mask of {@link PinEvent} values
+     * @return true if every event in the mask is accepted by subscription
+     */
+    public boolean acceptsAll(int eventMask) {
+        return (eventMask & ~pinEvent.getValue()) == 0;
+    }
+
+    /**
+     * Checks if the subscription is interested in the given event.
+     *
+     * @param event detected event
+     * @return true if event should be delivered to subscription
+     */
+    public boolean accepts(PinEvent event) {
+        return (event.getValue() & pinEvent.getValue()) != 0;
+    }
+}
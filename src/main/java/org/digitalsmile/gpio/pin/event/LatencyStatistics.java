@@ -0,0 +1,18 @@
+package org.digitalsmile.gpio.pin.event;
+
+/**
+ * Snapshot of edge-to-callback latency statistics in low latency event detection mode.
+ * Latency is measured from kernel timestamp of the event to the moment the event is handed over to subscriptions.
+ *
+ * @param events         number of measured events
+ * @param minLatencyNs   minimum latency in nanoseconds
+ * @param maxLatencyNs   maximum latency in nanoseconds
+ * @param meanLatencyNs  mean latency in nanoseconds
+ * @param spinReads      number of event batches caught while spinning
+ * @param blockingPolls  number of fallbacks to blocking poll after the idle spin budget was spent
+ * @param idleSpinNanos  total time spent spinning without events, in nanoseconds
+ * @see BusyPollOptions
+ */
+public record LatencyStatistics(long events, long minLatencyNs, long maxLatencyNs, double meanLatencyNs,
+                                long spinReads, long blockingPolls, long idleSpinNanos) {
+}
@@ -0,0 +1,22 @@
+package org.digitalsmile.gpio.pin.event;
+
+/**
+ * Allocation-free event processing callback. Detected events are passed as primitive arrays, so high-rate consumers can process batches
+ * without any heap allocation. Arrays are owned by the event watcher and reused for the next batch, they are valid only during the call
+ * and must be copied if the data is needed afterwards.
+ * WARNING: since the caller of this callback is heavily tight with linux poll, it is recommended to do processing as fast as possible in implementation part.
+ *
+ * @see PinEventProcessing
+ */
+@FunctionalInterface
+public interface PinEventSink {
+    /**
+     * Process the batch of events on the GPIO Pin. Only first {@code count} elements of arrays are valid.
+     *
+     * @param timestamps      timestamps in nanoseconds (best effort estimate)
+     * @param events          event types (see {@link org.digitalsmile.gpio.pin.attributes.PinEvent#getValue()})
+     * @param sequenceNumbers numbers of events since detecting started on the pin
+     * @param count           number of events in the batch
+     */
+    void onEvents(long[] timestamps, int[] events, int[] sequenceNumbers, int count);
+}
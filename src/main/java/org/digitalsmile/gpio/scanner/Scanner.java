@@ -24,6 +24,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Scanner {
     private static final Logger logger = LoggerFactory.getLogger(Scanner.class);
@@ -85,21 +88,29 @@ public class Scanner {
                 FILE.close(gpioFd);
             }
         }
-        for (int i = 0; i < 255; i++) {
-            var i2cFile = Path.of(I2C_PATH + i).toFile();
-            if (i2cFile.exists()) {
-                logger.debug("Found I2C Bus '{}'. Will try to initialize and scan for available devices.", i2cFile);
-                try (var i2c = GPIOBoard.ofI2C(I2C_PATH, i)) {
-                    var scan = i2c.scan();
-                    List<I2CAddress> addresses = new ArrayList<>();
-                    for (Map.Entry<Integer, I2CStatus> entry : scan.entrySet()) {
-                        if (entry.getValue().equals(I2CStatus.NOT_AVAILABLE)) {
-                            continue;
-                        }
-                        addresses.add(new I2CAddress(entry.getKey(), entry.getValue()));
-                    }
-                    i2cDevices.add(new I2CDevice(i2cFile.getPath(), i2c.getFunctionalities(), addresses));
+        List<Future<I2CDevice>> i2cScans = new ArrayList<>();
+        // every bus is scanned on its own platform thread, since probes are blocking native calls
+        try (var executor = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name("i2c-scan-", 0).factory())) {
+            for (int i = 0; i < 255; i++) {
+                var i2cFile = Path.of(I2C_PATH + i).toFile();
+                if (i2cFile.exists()) {
+                    logger.debug("Found I2C Bus '{}'. Will try to initialize and scan for available devices.", i2cFile);
+                    var busNumber = i;
+                    i2cScans.add(executor.submit(() -> scanI2C(i2cFile.getPath(), busNumber)));
+                }
+            }
+        }
+        for (Future<I2CDevice> i2cScan : i2cScans) {
+            try {
+                i2cDevices.add(i2cScan.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof NativeMemoryException nativeMemoryException) {
+                    throw nativeMemoryException;
                 }
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
             }
         }
         for (int i = 0; i < 255; i++) {
@@ -123,6 +134,20 @@ public class Scanner {
         logger.debug("Done scanning.");
     }
 
+    private static I2CDevice scanI2C(String path, int busNumber) throws NativeMemoryException {
+        try (var i2c = GPIOBoard.ofI2C(I2C_PATH, busNumber)) {
+            var scan = i2c.quickScan();
+            List<I2CAddress> addresses = new ArrayList<>();
+            for (Map.Entry<Integer, I2CStatus> entry : scan.entrySet()) {
+                if (entry.getValue().equals(I2CStatus.NOT_AVAILABLE)) {
+                    continue;
+                }
+                addresses.add(new I2CAddress(entry.getKey(), entry.getValue()));
+            }
+            return new I2CDevice(path, i2c.getFunctionalities(), addresses);
+        }
+    }
+
     private static String prettyPrintAll() {
         for (GPIODevice gpioDevice : gpioDevices) {
             System.out.println("GPIO chip path: " + gpioDevice.path() + " | Name (label): " + gpioDevice.name() + " (" + gpioDevice.label() + ")");
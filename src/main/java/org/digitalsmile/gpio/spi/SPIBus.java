@@ -2,6 +2,7 @@ package org.digitalsmile.gpio.spi;
 
 import io.github.digitalsmile.annotation.function.NativeMemoryException;
 import org.digitalsmile.gpio.GPIOBoard;
+import org.digitalsmile.gpio.core.executor.BusExecutor;
 import org.digitalsmile.gpio.core.file.FileDescriptor;
 import org.digitalsmile.gpio.core.file.FileDescriptorNative;
 import org.digitalsmile.gpio.core.file.FileFlag;
@@ -9,9 +10,22 @@ import org.digitalsmile.gpio.core.ioctl.Command;
 import org.digitalsmile.gpio.core.ioctl.Ioctl;
 import org.digitalsmile.gpio.core.ioctl.IoctlNative;
 import org.digitalsmile.gpio.spi.attributes.SPIMode;
+import org.digitalsmile.gpio.spi.structs.SPIIocTransfer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Class for creating GPIO SPIBus object. It uses native FFM calls (such as open and ioctl) to operate with hardware.
  * Instance of SPIBus can only be created from {@link GPIOBoard} class, because we need to initialize GPIO device first and run some validations beforehand.
@@ -22,6 +36,16 @@ public final class SPIBus {
     private static final Ioctl IOCTL = new IoctlNative();
     private static final FileDescriptor FILE = new FileDescriptorNative();
 
+    /**
+     * Maximum number of transfers in one SPI_IOC_MESSAGE call, limited by the size field of ioctl command.
+     */
+    public static final int MAX_TRANSFERS = 511;
+
+    private static final String SPIDEV_BUFFER_SIZE_PATH = "/sys/module/spidev/parameters/bufsiz";
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+    private static final long TRANSFER_SIZE = SPIIocTransfer.LAYOUT.byteSize();
+    private static final long CS_CHANGE_OFFSET = SPIIocTransfer.LAYOUT.byteOffset(MemoryLayout.PathElement.groupElement("cs_change"));
+
     private final String path;
     private SPIMode SPIMode;
     private int clockFrequency;
@@ -29,7 +53,12 @@ public final class SPIBus {
     private int bitOrdering;
 
     private final int spiFileDescriptor;
+    private final int bufferSize;
+    // scratch array of spi_ioc_transfer structures, guarded by itself
+    private final Arena arena;
+    private final MemorySegment message;
     private boolean closed = false;
+    private BusExecutor executor;
 
     /**
      * Constructs SPIBus object with given path, bus number, SPI mode, clock frequency, length of byte and bit order.
@@ -56,6 +85,9 @@ public final class SPIBus {
         logger.info("{} - setting up SPIBus...", path);
         logger.debug("{} - opening device file.", path);
         this.spiFileDescriptor = FILE.open(path, FileFlag.O_RDWR);
+        this.arena = Arena.ofShared();
+        this.message = arena.allocate(SPIIocTransfer.LAYOUT, MAX_TRANSFERS);
+        this.bufferSize = readBufferSize();
 
         init();
         logger.info("{} - SPIBus configured.", path);
@@ -173,6 +205,8 @@ public final class SPIBus {
 
     /**
      * Sends the byte into SPI Bus. Can immediately read from bus or skip the returned value.
+     * Data larger than spidev buffer size is split into chunks with chip select held active.
+     * Writing is half-duplex, bytes clocked in while writing are not returned, use {@link #transfer(byte[])} for full-duplex transfer.
      *
      * @param data          data to be sent to bus
      * @param immediateRead indicates if we should immediately read from bus after writing
@@ -182,7 +216,7 @@ public final class SPIBus {
     public byte[] sendByteData(byte[] data, boolean immediateRead) throws NativeMemoryException {
         checkClosed();
         logger.trace("{} - writing data {}.", path, data);
-        FILE.write(spiFileDescriptor, data);
+        transfer(List.of(SPITransfer.ofWrite(data)));
         var read = immediateRead ? FILE.read(spiFileDescriptor, new byte[1], 1) : new byte[]{};
         if (immediateRead) {
             logger.trace("{} - immediate read data {}.", path, read);
@@ -190,6 +224,284 @@ public final class SPIBus {
         return read;
     }
 
+    /**
+     * Executes full-duplex transfer: data is written and bytes clocked in at the same time are returned.
+     *
+     * @param data data to be sent to bus
+     * @return data read while writing, with the same length
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public byte[] transfer(byte[] data) throws NativeMemoryException {
+        var rxData = new byte[data.length];
+        transfer(data, rxData);
+        return rxData;
+    }
+
+    /**
+     * Executes full-duplex transfer: data is written and bytes clocked in at the same time are stored into read buffer.
+     *
+     * @param txData data to be sent to bus
+     * @param rxData buffer to be filled with read data, must have the same length
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void transfer(byte[] txData, byte[] rxData) throws NativeMemoryException {
+        transfer(List.of(SPITransfer.ofDuplex(txData, rxData)));
+    }
+
+    /**
+     * Executes transfers as one SPI message in single SPI_IOC_MESSAGE ioctl call. Chip select is held active between transfers
+     * unless chip select change is requested by transfer, e.g. command write followed by data read of ADC or flash.
+     *
+     * @param transfers transfers of the message
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void transfer(SPITransfer... transfers) throws NativeMemoryException {
+        transfer(Arrays.asList(transfers));
+    }
+
+    /**
+     * Executes transfers as one SPI message in single SPI_IOC_MESSAGE ioctl call. Chip select is held active between transfers
+     * unless chip select change is requested by transfer, e.g. command write followed by data read of ADC or flash.
+     * <p>
+     * Spidev rejects messages larger than its buffer size (see {@link #getBufferSize()}), so large transfers are split into chunks
+     * and sent in as few ioctl calls as possible. Chip select is held active between such calls, so the device sees one message.
+     *
+     * @param transfers transfers of the message
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void transfer(List<SPITransfer> transfers) throws NativeMemoryException {
+        checkClosed();
+        if (transfers.isEmpty()) {
+            throw new IllegalArgumentException("At least one transfer must be provided.");
+        }
+        logger.trace("{} - executing transfers {}.", path, transfers);
+        var heapData = false;
+        for (var transfer : transfers) {
+            heapData |= !transfer.isNative();
+        }
+        synchronized (message) {
+            // native buffers are passed by address, heap buffers are copied and read data is copied back after the call
+            try (var copies = heapData ? Arena.ofConfined() : null) {
+                var rxCopies = heapData ? new MemorySegment[transfers.size()] : null;
+                var count = 0;
+                var messageSize = 0L;
+                var lastChunkEnds = false;
+                var lastCsChange = false;
+                for (int i = 0; i < transfers.size(); i++) {
+                    var transfer = transfers.get(i);
+                    var txBuffer = 0L;
+                    var txData = transfer.getTxData();
+                    if (txData != null) {
+                        txBuffer = txData.isNative() ? txData.address() : copies.allocate(txData.byteSize()).copyFrom(txData).address();
+                    }
+                    var rxBuffer = 0L;
+                    var rxData = transfer.getRxData();
+                    if (rxData != null) {
+                        if (rxData.isNative()) {
+                            rxBuffer = rxData.address();
+                        } else {
+                            rxCopies[i] = copies.allocate(rxData.byteSize());
+                            rxBuffer = rxCopies[i].address();
+                        }
+                    }
+                    var offset = 0;
+                    while (offset < transfer.getLength()) {
+                        if (count == MAX_TRANSFERS || messageSize == bufferSize) {
+                            // cs_change of the last transfer keeps device selected until the next message,
+                            // unless the transfer itself asked to deselect
+                            message.set(ValueLayout.JAVA_BYTE, (count - 1) * TRANSFER_SIZE + CS_CHANGE_OFFSET,
+                                    (byte) (lastChunkEnds && lastCsChange ? 0 : 1));
+                            sendMessage(count);
+                            count = 0;
+                            messageSize = 0;
+                        }
+                        var chunk = (int) Math.min(transfer.getLength() - offset, bufferSize - messageSize);
+                        var chunkEnds = offset + chunk == transfer.getLength();
+                        new SPIIocTransfer(txBuffer == 0 ? 0 : txBuffer + offset, rxBuffer == 0 ? 0 : rxBuffer + offset, chunk,
+                                transfer.getClockFrequency(), (short) (chunkEnds ? transfer.getDelayMicroseconds() : 0),
+                                (byte) transfer.getByteLength(), (byte) (chunkEnds && transfer.isCsChange() ? 1 : 0),
+                                (byte) 0, (byte) 0, (byte) 0)
+                                .toBytes(message.asSlice(count * TRANSFER_SIZE, TRANSFER_SIZE));
+                        count++;
+                        messageSize += chunk;
+                        offset += chunk;
+                        lastChunkEnds = chunkEnds;
+                        lastCsChange = transfer.isCsChange();
+                    }
+                }
+                sendMessage(count);
+                if (rxCopies != null) {
+                    for (int i = 0; i < transfers.size(); i++) {
+                        if (rxCopies[i] != null) {
+                            transfers.get(i).getRxData().copyFrom(rxCopies[i]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the maximum size of one SPI message, read from spidev module parameters.
+     *
+     * @return size of spidev buffer in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Writes the data from native segment without copying.
+     *
+     * @param data native segment with data to be sent to bus
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void write(MemorySegment data) throws NativeMemoryException {
+        transfer(List.of(SPITransfer.ofWrite(data)));
+    }
+
+    /**
+     * Writes remaining data from direct buffer without copying. Position of buffer is advanced by the number of bytes written.
+     *
+     * @param data direct buffer with data to be sent to bus
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void write(ByteBuffer data) throws NativeMemoryException {
+        transfer(List.of(SPITransfer.ofWrite(data)));
+        data.position(data.limit());
+    }
+
+    /**
+     * Reads the data into native segment without copying, zeros are written while reading.
+     *
+     * @param data native segment to be filled with data
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void read(MemorySegment data) throws NativeMemoryException {
+        transfer(List.of(SPITransfer.ofRead(data)));
+    }
+
+    /**
+     * Reads the data into remaining space of direct buffer without copying. Position of buffer is advanced by the number of bytes read.
+     *
+     * @param data direct buffer to be filled with data
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void read(ByteBuffer data) throws NativeMemoryException {
+        transfer(List.of(SPITransfer.ofRead(data)));
+        data.position(data.limit());
+    }
+
+    /**
+     * Executes full-duplex transfer between native segments without copying.
+     *
+     * @param txData native segment with data to be sent to bus
+     * @param rxData native segment to be filled with read data, must have the same size
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void transfer(MemorySegment txData, MemorySegment rxData) throws NativeMemoryException {
+        transfer(List.of(SPITransfer.ofDuplex(txData, rxData)));
+    }
+
+    /**
+     * Executes full-duplex transfer between direct buffers without copying. Remaining bytes of both buffers must be equal,
+     * positions of buffers are advanced by the number of bytes transferred.
+     *
+     * @param txData direct buffer with data to be sent to bus
+     * @param rxData direct buffer to be filled with read data
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    public void transfer(ByteBuffer txData, ByteBuffer rxData) throws NativeMemoryException {
+        transfer(List.of(SPITransfer.ofDuplex(txData, rxData)));
+        txData.position(txData.limit());
+        rxData.position(rxData.limit());
+    }
+
+    /**
+     * Executes full-duplex transfer asynchronously on the dedicated worker thread of this bus.
+     * Calls are executed in order of submission, if the submission queue is full the future completes exceptionally.
+     *
+     * @param data data to be sent to bus
+     * @return future of data read while writing
+     */
+    public CompletableFuture<byte[]> transferAsync(byte[] data) {
+        checkClosed();
+        var copy = data.clone();
+        return getExecutor().submit(() -> transfer(copy));
+    }
+
+    /**
+     * Executes transfers as one SPI message asynchronously on the dedicated worker thread of this bus.
+     * Transfers must not be changed until the future is completed, read data is available from transfers afterwards.
+     *
+     * @param transfers transfers of the message
+     * @return future completed when message is executed
+     */
+    public CompletableFuture<Void> transferAsync(List<SPITransfer> transfers) {
+        checkClosed();
+        var copy = List.copyOf(transfers);
+        return getExecutor().submit(() -> {
+            transfer(copy);
+            return null;
+        });
+    }
+
+    /**
+     * Sends the byte into SPI Bus asynchronously on the dedicated worker thread of this bus.
+     * Calls are executed in order of submission, if the submission queue is full the future completes exceptionally.
+     *
+     * @param data          data to be sent to bus
+     * @param immediateRead indicates if we should immediately read from bus after writing
+     * @return future of byte array with data or zero length byte array (if no immediate read)
+     */
+    public CompletableFuture<byte[]> sendByteDataAsync(byte[] data, boolean immediateRead) {
+        checkClosed();
+        var copy = data.clone();
+        return getExecutor().submit(() -> sendByteData(copy, immediateRead));
+    }
+
+    /**
+     * Executes prepared transfers of scratch array in one SPI_IOC_MESSAGE ioctl call.
+     *
+     * @param count number of transfers
+     * @throws NativeMemoryException if error occurred during the transfer
+     */
+    private void sendMessage(int count) throws NativeMemoryException {
+        IOCTL.callByValue(spiFileDescriptor, Command.getSpiIocMessage(count), message.address());
+    }
+
+    /**
+     * Reads the buffer size of spidev module, default value is used if it cannot be read.
+     *
+     * @return size of spidev buffer in bytes
+     */
+    private int readBufferSize() {
+        try {
+            var size = Integer.parseInt(Files.readString(Path.of(SPIDEV_BUFFER_SIZE_PATH)).trim());
+            if (size <= 0) {
+                throw new NumberFormatException("Buffer size must be positive.");
+            }
+            logger.debug("{} - spidev buffer size is {} bytes.", path, size);
+            return size;
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("{} - cannot read spidev buffer size, using default of {} bytes.", path, DEFAULT_BUFFER_SIZE);
+            return DEFAULT_BUFFER_SIZE;
+        }
+    }
+
+    /**
+     * Gets the executor of asynchronous calls, it is created on first call.
+     *
+     * @return executor of asynchronous calls
+     */
+    private synchronized BusExecutor getExecutor() {
+        if (executor == null) {
+            logger.debug("{} - starting asynchronous worker.", path);
+            this.executor = new BusExecutor("spi-worker-" + path, BusExecutor.DEFAULT_QUEUE_CAPACITY);
+        }
+        return executor;
+    }
+
     /**
      * Closes the SPI Bus. Object must be recreated if used after closing.
      *
@@ -197,7 +509,15 @@ public final class SPIBus {
      */
     public void close() throws NativeMemoryException {
         logger.info("{} - closing SPIBus.", path);
+        synchronized (this) {
+            if (executor != null) {
+                executor.close();
+            }
+        }
         FILE.close(spiFileDescriptor);
+        synchronized (message) {
+            arena.close();
+        }
         this.closed = true;
         logger.info("{} - SPIBus is closed. Recreate the SPIBus object to reuse.", path);
     }
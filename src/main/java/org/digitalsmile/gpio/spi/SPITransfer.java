@@ -0,0 +1,323 @@
+package org.digitalsmile.gpio.spi;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+
+/**
+ * Single transfer of SPI message. All transfers of message are executed by {@link SPIBus#transfer(SPITransfer...)} in one
+ * SPI_IOC_MESSAGE ioctl call, chip select is held active between transfers unless {@link #withCsChange(boolean)} is set.
+ * <p>
+ * Transfer can be write only, read only (zeros are shifted out) or full-duplex, when the data is written and read at the same time.
+ * Parameters of transfer override the defaults of the bus only for this transfer.
+ */
+public final class SPITransfer {
+    private final MemorySegment txData;
+    private final MemorySegment rxData;
+    private final int length;
+
+    private boolean csChange;
+    private int delayMicroseconds;
+    private int clockFrequency;
+    private int byteLength;
+
+    /**
+     * Creates transfer.
+     *
+     * @param txData data to be written or null
+     * @param rxData buffer to be filled with data or null
+     * @param length length of transfer
+     */
+    private SPITransfer(MemorySegment txData, MemorySegment rxData, int length) {
+        this.txData = txData;
+        this.rxData = rxData;
+        this.length = length;
+    }
+
+    /**
+     * Creates write only transfer. Data is read at the moment of execution.
+     *
+     * @param data data to be written
+     * @return transfer
+     */
+    public static SPITransfer ofWrite(byte[] data) {
+        checkLength(data.length);
+        return new SPITransfer(MemorySegment.ofArray(data), null, data.length);
+    }
+
+    /**
+     * Creates read only transfer, zeros are written while reading.
+     *
+     * @param length number of bytes to read
+     * @return transfer
+     */
+    public static SPITransfer ofRead(int length) {
+        checkLength(length);
+        return new SPITransfer(null, MemorySegment.ofArray(new byte[length]), length);
+    }
+
+    /**
+     * Creates full-duplex transfer, bytes clocked in while writing are stored into read buffer.
+     *
+     * @param data data to be written
+     * @return transfer
+     */
+    public static SPITransfer ofDuplex(byte[] data) {
+        checkLength(data.length);
+        return new SPITransfer(MemorySegment.ofArray(data), MemorySegment.ofArray(new byte[data.length]), data.length);
+    }
+
+    /**
+     * Creates full-duplex transfer with given read buffer.
+     *
+     * @param txData data to be written
+     * @param rxData buffer to be filled with read data, must have the same length
+     * @return transfer
+     */
+    public static SPITransfer ofDuplex(byte[] txData, byte[] rxData) {
+        if (txData.length != rxData.length) {
+            throw new IllegalArgumentException("Write and read buffers must have the same length.");
+        }
+        checkLength(txData.length);
+        return new SPITransfer(MemorySegment.ofArray(txData), MemorySegment.ofArray(rxData), txData.length);
+    }
+
+    /**
+     * Creates write only transfer from segment. Native segment is passed to the kernel without copying.
+     *
+     * @param data segment with data to be written
+     * @return transfer
+     */
+    public static SPITransfer ofWrite(MemorySegment data) {
+        return new SPITransfer(data, null, checkLength(data.byteSize()));
+    }
+
+    /**
+     * Creates write only transfer from remaining bytes of direct buffer, position of buffer is not changed.
+     *
+     * @param data direct buffer with data to be written
+     * @return transfer
+     */
+    public static SPITransfer ofWrite(ByteBuffer data) {
+        return ofWrite(ofDirectBuffer(data));
+    }
+
+    /**
+     * Creates read only transfer into segment, zeros are written while reading. Native segment is filled by the kernel without copying.
+     *
+     * @param data segment to be filled with data
+     * @return transfer
+     */
+    public static SPITransfer ofRead(MemorySegment data) {
+        return new SPITransfer(null, data, checkLength(data.byteSize()));
+    }
+
+    /**
+     * Creates read only transfer into remaining space of direct buffer, position of buffer is not changed.
+     *
+     * @param data direct buffer to be filled with data
+     * @return transfer
+     */
+    public static SPITransfer ofRead(ByteBuffer data) {
+        return ofRead(ofDirectBuffer(data));
+    }
+
+    /**
+     * Creates full-duplex transfer between segments. Native segments are used by the kernel without copying.
+     *
+     * @param txData segment with data to be written
+     * @param rxData segment to be filled with read data, must have the same size
+     * @return transfer
+     */
+    public static SPITransfer ofDuplex(MemorySegment txData, MemorySegment rxData) {
+        if (txData.byteSize() != rxData.byteSize()) {
+            throw new IllegalArgumentException("Write and read segments must have the same size.");
+        }
+        return new SPITransfer(txData, rxData, checkLength(txData.byteSize()));
+    }
+
+    /**
+     * Creates full-duplex transfer between remaining bytes of direct buffers, positions of buffers are not changed.
+     *
+     * @param txData direct buffer with data to be written
+     * @param rxData direct buffer to be filled with read data, must have the same number of remaining bytes
+     * @return transfer
+     */
+    public static SPITransfer ofDuplex(ByteBuffer txData, ByteBuffer rxData) {
+        return ofDuplex(ofDirectBuffer(txData), ofDirectBuffer(rxData));
+    }
+
+    /**
+     * Sets if the device should be deselected after this transfer, before the next transfer of the message.
+     * For the last transfer of the message it keeps device selected until the next message instead.
+     *
+     * @param csChange true to change chip select after transfer
+     * @return this transfer
+     */
+    public SPITransfer withCsChange(boolean csChange) {
+        this.csChange = csChange;
+        return this;
+    }
+
+    /**
+     * Sets the delay after the last bit of transfer, before optionally changing chip select.
+     *
+     * @param delayMicroseconds delay in microseconds (0 - 65535)
+     * @return this transfer
+     */
+    public SPITransfer withDelay(int delayMicroseconds) {
+        if (delayMicroseconds < 0 || delayMicroseconds > 0xFFFF) {
+            throw new IllegalArgumentException("Delay must be from 0 to 65535 microseconds.");
+        }
+        this.delayMicroseconds = delayMicroseconds;
+        return this;
+    }
+
+    /**
+     * Sets the clock frequency of this transfer.
+     *
+     * @param clockFrequency clock frequency in Hz, zero to use the default of bus
+     * @return this transfer
+     */
+    public SPITransfer withClockFrequency(int clockFrequency) {
+        if (clockFrequency < 0) {
+            throw new IllegalArgumentException("Clock frequency must not be negative.");
+        }
+        this.clockFrequency = clockFrequency;
+        return this;
+    }
+
+    /**
+     * Sets the byte length (bits per word) of this transfer.
+     *
+     * @param byteLength byte length, zero to use the default of bus
+     * @return this transfer
+     */
+    public SPITransfer withByteLength(int byteLength) {
+        if (byteLength < 0 || byteLength > 0xFF) {
+            throw new IllegalArgumentException("Byte length must be from 0 to 255.");
+        }
+        this.byteLength = byteLength;
+        return this;
+    }
+
+    /**
+     * Gets the data read by this transfer after execution.
+     *
+     * @return read data or empty array for write only transfer
+     */
+    public byte[] getReadData() {
+        return rxData == null ? new byte[]{} : rxData.toArray(ValueLayout.JAVA_BYTE);
+    }
+
+    /**
+     * Gets the length of transfer.
+     *
+     * @return length in bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the data to be written.
+     *
+     * @return segment with data or null for read only transfer
+     */
+    MemorySegment getTxData() {
+        return txData;
+    }
+
+    /**
+     * Gets the buffer to be filled with read data.
+     *
+     * @return segment for data or null for write only transfer
+     */
+    MemorySegment getRxData() {
+        return rxData;
+    }
+
+    /**
+     * Checks if the chip select should be changed after transfer.
+     *
+     * @return true if chip select should be changed
+     */
+    boolean isCsChange() {
+        return csChange;
+    }
+
+    /**
+     * Gets the delay after transfer.
+     *
+     * @return delay in microseconds
+     */
+    int getDelayMicroseconds() {
+        return delayMicroseconds;
+    }
+
+    /**
+     * Gets the clock frequency of transfer.
+     *
+     * @return clock frequency in Hz or zero
+     */
+    int getClockFrequency() {
+        return clockFrequency;
+    }
+
+    /**
+     * Gets the byte length of transfer.
+     *
+     * @return byte length or zero
+     */
+    int getByteLength() {
+        return byteLength;
+    }
+
+    /**
+     * Checks if both buffers of transfer are native, so they can be passed to the kernel without copying.
+     *
+     * @return true if no copy is needed
+     */
+    boolean isNative() {
+        return (txData == null || txData.isNative()) && (rxData == null || rxData.isNative());
+    }
+
+    /**
+     * Checks the length of transfer.
+     *
+     * @param length length of transfer
+     * @return length as integer
+     */
+    private static int checkLength(long length) {
+        if (length <= 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Length of transfer must be from 1 to " + Integer.MAX_VALUE + " bytes.");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Gets the segment of remaining bytes of direct buffer.
+     *
+     * @param buffer direct buffer
+     * @return segment of buffer
+     */
+    private static MemorySegment ofDirectBuffer(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct.");
+        }
+        return MemorySegment.ofBuffer(buffer);
+    }
+
+    @Override
+    public String toString() {
+        return "SPITransfer{" +
+                "length=" + length +
+                ", write=" + (txData != null) +
+                ", read=" + (rxData != null) +
+                ", csChange=" + csChange +
+                ", delayMicroseconds=" + delayMicroseconds +
+                ", clockFrequency=" + clockFrequency +
+                ", byteLength=" + byteLength +
+                '}';
+    }
+}
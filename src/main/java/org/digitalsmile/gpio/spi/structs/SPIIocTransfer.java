@@ -0,0 +1,111 @@
+package org.digitalsmile.gpio.spi.structs;
+
+import io.github.digitalsmile.annotation.structure.NativeMemoryLayout;
+
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Structure that represents spi_ioc_transfer, single transfer of SPI_IOC_MESSAGE(n) ioctl call.
+ *
+ * @param txBuffer       address of native buffer with data to be written, zero to shift out zeros
+ * @param rxBuffer       address of native buffer to be filled with read data, zero to discard read data
+ * @param length         length of transfer in bytes
+ * @param speedHz        clock frequency of transfer, zero to use the default of device
+ * @param delayUsecs     delay after the last bit of transfer before optionally changing chip select
+ * @param bitsPerWord    word size of transfer, zero to use the default of device
+ * @param csChange       non-zero to deselect the device before the next transfer
+ * @param txNbits        number of bits used for writing (single, dual or quad), zero for single
+ * @param rxNbits        number of bits used for reading (single, dual or quad), zero for single
+ * @param wordDelayUsecs delay between words of transfer
+ */
+public record SPIIocTransfer(long txBuffer, long rxBuffer, int length, int speedHz, short delayUsecs, byte bitsPerWord,
+                             byte csChange, byte txNbits, byte rxNbits, byte wordDelayUsecs) implements NativeMemoryLayout {
+    public static final MemoryLayout LAYOUT = MemoryLayout.structLayout(
+            ValueLayout.JAVA_LONG.withName("tx_buf"),
+            ValueLayout.JAVA_LONG.withName("rx_buf"),
+            ValueLayout.JAVA_INT.withName("len"),
+            ValueLayout.JAVA_INT.withName("speed_hz"),
+            ValueLayout.JAVA_SHORT.withName("delay_usecs"),
+            ValueLayout.JAVA_BYTE.withName("bits_per_word"),
+            ValueLayout.JAVA_BYTE.withName("cs_change"),
+            ValueLayout.JAVA_BYTE.withName("tx_nbits"),
+            ValueLayout.JAVA_BYTE.withName("rx_nbits"),
+            ValueLayout.JAVA_BYTE.withName("word_delay_usecs"),
+            MemoryLayout.paddingLayout(1)
+    );
+    private static final VarHandle VH_TX_BUFFER = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("tx_buf"));
+    private static final VarHandle VH_RX_BUFFER = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("rx_buf"));
+    private static final VarHandle VH_LENGTH = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("len"));
+    private static final VarHandle VH_SPEED_HZ = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("speed_hz"));
+    private static final VarHandle VH_DELAY_USECS = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("delay_usecs"));
+    private static final VarHandle VH_BITS_PER_WORD = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("bits_per_word"));
+    private static final VarHandle VH_CS_CHANGE = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("cs_change"));
+    private static final VarHandle VH_TX_NBITS = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("tx_nbits"));
+    private static final VarHandle VH_RX_NBITS = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("rx_nbits"));
+    private static final VarHandle VH_WORD_DELAY_USECS = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("word_delay_usecs"));
+
+    public static SPIIocTransfer createEmpty() {
+        return new SPIIocTransfer(0, 0, 0, 0, (short) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0);
+    }
+
+    @Override
+    public MemoryLayout getMemoryLayout() {
+        return LAYOUT;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public SPIIocTransfer fromBytes(MemorySegment buffer) {
+        return new SPIIocTransfer(
+                (long) VH_TX_BUFFER.get(buffer, 0L),
+                (long) VH_RX_BUFFER.get(buffer, 0L),
+                (int) VH_LENGTH.get(buffer, 0L),
+                (int) VH_SPEED_HZ.get(buffer, 0L),
+                (short) VH_DELAY_USECS.get(buffer, 0L),
+                (byte) VH_BITS_PER_WORD.get(buffer, 0L),
+                (byte) VH_CS_CHANGE.get(buffer, 0L),
+                (byte) VH_TX_NBITS.get(buffer, 0L),
+                (byte) VH_RX_NBITS.get(buffer, 0L),
+                (byte) VH_WORD_DELAY_USECS.get(buffer, 0L));
+    }
+
+    @Override
+    public void toBytes(MemorySegment buffer) {
+        VH_TX_BUFFER.set(buffer, 0L, txBuffer);
+        VH_RX_BUFFER.set(buffer, 0L, rxBuffer);
+        VH_LENGTH.set(buffer, 0L, length);
+        VH_SPEED_HZ.set(buffer, 0L, speedHz);
+        VH_DELAY_USECS.set(buffer, 0L, delayUsecs);
+        VH_BITS_PER_WORD.set(buffer, 0L, bitsPerWord);
+        VH_CS_CHANGE.set(buffer, 0L, csChange);
+        VH_TX_NBITS.set(buffer, 0L, txNbits);
+        VH_RX_NBITS.set(buffer, 0L, rxNbits);
+        VH_WORD_DELAY_USECS.set(buffer, 0L, wordDelayUsecs);
+        // padding byte is not covered by var handles, keep it zeroed for the kernel
+        buffer.set(ValueLayout.JAVA_BYTE, LAYOUT.byteSize() - 1, (byte) 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SPIIocTransfer{" +
+                "txBuffer=" + txBuffer +
+                ", rxBuffer=" + rxBuffer +
+                ", length=" + length +
+                ", speedHz=" + speedHz +
+                ", delayUsecs=" + Short.toUnsignedInt(delayUsecs) +
+                ", bitsPerWord=" + bitsPerWord +
+                ", csChange=" + csChange +
+                ", txNbits=" + txNbits +
+                ", rxNbits=" + rxNbits +
+                ", wordDelayUsecs=" + wordDelayUsecs +
+                '}';
+    }
+}